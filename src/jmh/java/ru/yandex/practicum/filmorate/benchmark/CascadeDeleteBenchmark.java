@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Удаление с каскадом на каталоге из {@code size} пользователей и фильмов. Каждая операция создает сущность
+ * с {@link #DEGREE} связями и удаляет ее, поэтому время должно зависеть от числа связей, а не от {@code size}.
+ * {@code deleteUser} — пользователь с друзьями и лайками, {@code deleteFilm} — фильм с лайками.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CascadeDeleteBenchmark {
+
+    private static final int DEGREE = 50;
+    private static final int FRIENDS_PER_USER = 10;
+    private static final int LIKES_PER_FILM = 5;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private InMemoryUserStorage userStorage;
+    private InMemoryFilmStorage filmStorage;
+    private UserService userService;
+    private FilmService filmService;
+    private SplittableRandom random;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        filmStorage = new InMemoryFilmStorage();
+        Datasets.fillUsers(userStorage, size);
+        Datasets.fillFriends(userStorage, size, FRIENDS_PER_USER);
+        Datasets.fillFilms(filmStorage, size);
+        Datasets.fillLikes(filmStorage, size, size, LIKES_PER_FILM);
+        userService = new UserService(userStorage, filmStorage, Optional.empty());
+        filmService = new FilmService(filmStorage, userStorage, Optional.empty());
+        random = new SplittableRandom(Datasets.SEED);
+        next = size;
+    }
+
+    @Benchmark
+    public void deleteUser() {
+        long userId = userStorage.create(Datasets.user(next++)).getId();
+        for (int i = 0; i < DEGREE; i++) {
+            userStorage.addFriend(userId, 1 + random.nextInt(size));
+            filmStorage.addLike(1 + random.nextInt(size), userId);
+        }
+        userService.deleteUser(userId);
+    }
+
+    @Benchmark
+    public void deleteFilm() {
+        long filmId = filmStorage.create(Datasets.film(next++)).getId();
+        LongSet likes = new LongSet(DEGREE);
+        for (int i = 0; i < DEGREE; i++) {
+            likes.add(1 + random.nextInt(size));
+        }
+        filmStorage.addLikes(filmId, likes);
+        filmService.deleteFilm(filmId);
+    }
+}
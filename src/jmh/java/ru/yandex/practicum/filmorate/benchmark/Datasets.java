@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Генерация синтетических наборов данных для бенчмарков.
+ * Генератор детерминирован, чтобы результаты разных запусков были сопоставимы.
+ */
+final class Datasets {
+
+    static final long SEED = 20240401L;
+
+    private static final String[] SYLLABLES = {"ka", "ro", "mi", "te", "lu", "sa", "no", "vi", "de", "ga",
+            "po", "ri", "zu", "he", "ba", "fo", "ni", "ta", "ke", "mo"};
+
+    private Datasets() {
+    }
+
+    static Film film(long index) {
+        return new Film(null, "Film " + index, "Description " + index,
+                LocalDate.of(1900, 1, 1).plusDays(index % 45_000), 90, null);
+    }
+
+    static User user(long index) {
+        return new User(null, "user" + index + "@example.com", "user" + index, "User " + index,
+                LocalDate.of(1970, 1, 1).plusDays(index % 15_000), null);
+    }
+
+    static void fillUsers(UserStorage userStorage, int size) {
+        for (long i = 0; i < size; i++) {
+            userStorage.create(user(i));
+        }
+    }
+
+    static void fillFilms(FilmStorage filmStorage, int size) {
+        for (long i = 0; i < size; i++) {
+            filmStorage.create(film(i));
+        }
+    }
+
+    /**
+     * Добавляет каждому фильму {@code likesPerFilm} лайков от случайных пользователей
+     * с перекосом в сторону небольшой группы популярных фильмов.
+     */
+    static void fillLikes(FilmStorage filmStorage, int films, int users, int likesPerFilm) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long filmId = 1; filmId <= films; filmId++) {
+            int likes = filmId % 100 == 0 ? likesPerFilm * 10 : likesPerFilm;
+            for (int i = 0; i < likes; i++) {
+                filmStorage.addLike(filmId, 1 + random.nextInt(users));
+            }
+        }
+    }
+
+    static void fillFriends(UserStorage userStorage, int users, int friendsPerUser) {
+        SplittableRandom random = new SplittableRandom(SEED + 1);
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < friendsPerUser; i++) {
+                long friendId = 1 + random.nextInt(users);
+                if (friendId != userId) {
+                    userStorage.addFriend(userId, friendId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Словарь из {@code size} различных псевдослов по 2–4 слога.
+     */
+    static String[] vocabulary(int size) {
+        SplittableRandom random = new SplittableRandom(SEED + 2);
+        Set<String> words = new LinkedHashSet<>();
+        StringBuilder word = new StringBuilder();
+        while (words.size() < size) {
+            word.setLength(0);
+            int syllables = 2 + random.nextInt(3);
+            for (int i = 0; i < syllables; i++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words.add(word.toString());
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Выбирает слово словаря с перекосом к его началу: первые слова встречаются намного чаще остальных.
+     */
+    static String word(String[] vocabulary, SplittableRandom random) {
+        double skew = random.nextDouble();
+        return vocabulary[(int) (vocabulary.length * skew * skew * skew)];
+    }
+
+    /**
+     * Фильм с названием из 2–3 и описанием из 6–10 слов словаря.
+     */
+    static Film describedFilm(long index, String[] vocabulary, SplittableRandom random) {
+        return new Film(null, words(vocabulary, random, 2 + random.nextInt(2)),
+                words(vocabulary, random, 6 + random.nextInt(5)),
+                LocalDate.of(1900, 1, 1).plusDays(index % 45_000), 90, null);
+    }
+
+    private static String words(String[] vocabulary, SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(word(vocabulary, random));
+        }
+        return text.toString();
+    }
+}
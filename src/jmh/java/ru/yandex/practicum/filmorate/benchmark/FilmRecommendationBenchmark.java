@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендации фильмов на синтетическом наборе примерно из миллиона лайков:
+ * {@code FILMS} фильмов по {@code LIKES_PER_FILM} лайков, у каждого сотого в десять раз больше.
+ * {@code findRecommended} — расчет без кеша, {@code getRecommendedFilms} — повторные запросы
+ * {@code HOT_USERS} активных пользователей через кеш сервиса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class FilmRecommendationBenchmark {
+
+    private static final int FILMS = 20_000;
+    private static final int LIKES_PER_FILM = 46;
+    private static final int HOT_USERS = 1_000;
+
+    @Param({"10000", "100000"})
+    private int users;
+
+    @Param({"10"})
+    private int limit;
+
+    private InMemoryFilmStorage filmStorage;
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        Datasets.fillUsers(userStorage, users);
+        Datasets.fillFilms(filmStorage, FILMS);
+        Datasets.fillLikes(filmStorage, FILMS, users, LIKES_PER_FILM);
+        filmService = new FilmService(filmStorage, userStorage, Optional.empty());
+    }
+
+    @Benchmark
+    public List<Film> findRecommended() {
+        return filmStorage.findRecommended(1 + ThreadLocalRandom.current().nextInt(users), limit);
+    }
+
+    @Benchmark
+    public List<Film> getRecommendedFilms() {
+        return filmService.getRecommendedFilms(1 + ThreadLocalRandom.current().nextInt(HOT_USERS), limit);
+    }
+}
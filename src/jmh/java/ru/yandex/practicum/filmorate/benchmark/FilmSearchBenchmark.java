@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по названию и описанию на каталоге из {@code films} фильмов со словарем {@code VOCABULARY} псевдослов,
+ * частоты которых сильно перекошены. Каждый десятый фильм получает до 20 лайков.
+ * Запросы: {@code word} — целое слово, {@code prefix} — первые три буквы слова,
+ * {@code twoWords} — два слова, {@code frequent} — префикс одного из самых частых слов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FilmSearchBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 1_024;
+
+    @Param({"1000000"})
+    private int films;
+
+    @Param({"word", "prefix", "twoWords", "frequent"})
+    private String query;
+
+    @Param({"10"})
+    private int limit;
+
+    private InMemoryFilmStorage filmStorage;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] vocabulary = Datasets.vocabulary(VOCABULARY);
+        SplittableRandom random = new SplittableRandom(Datasets.SEED);
+        filmStorage = new InMemoryFilmStorage();
+        for (long i = 0; i < films; i++) {
+            Film film = filmStorage.create(Datasets.describedFilm(i, vocabulary, random));
+            if (i % 10 == 0) {
+                int likes = 1 + random.nextInt(20);
+                for (int like = 0; like < likes; like++) {
+                    filmStorage.addLike(film.getId(), 1 + random.nextInt(100_000));
+                }
+            }
+        }
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String word = Datasets.word(vocabulary, random);
+            queries[i] = switch (query) {
+                case "word" -> word;
+                case "prefix" -> word.substring(0, 3);
+                case "twoWords" -> word + " " + Datasets.word(vocabulary, random);
+                case "frequent" -> vocabulary[random.nextInt(10)].substring(0, 3);
+                default -> throw new IllegalArgumentException(query);
+            };
+        }
+    }
+
+    @Benchmark
+    public List<Film> search() {
+        return filmStorage.search(queries[next++ & (QUERIES - 1)], limit);
+    }
+}
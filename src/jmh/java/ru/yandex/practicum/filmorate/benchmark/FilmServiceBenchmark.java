@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class FilmServiceBenchmark {
+
+    private static final int LIKES_PER_FILM = 5;
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"10"})
+    private int count;
+
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        Datasets.fillUsers(userStorage, size);
+        Datasets.fillFilms(filmStorage, size);
+        Datasets.fillLikes(filmStorage, size, size, LIKES_PER_FILM);
+        filmService = new FilmService(filmStorage, userStorage, Optional.empty());
+    }
+
+    @Benchmark
+    public void addLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        filmService.addLike(1 + random.nextInt(size), 1 + random.nextInt(size));
+    }
+
+    @Benchmark
+    public List<Film> getMostPopularFilms() {
+        return filmService.getMostPopularFilms(count);
+    }
+}
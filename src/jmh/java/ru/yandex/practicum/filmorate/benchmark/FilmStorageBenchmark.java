@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private InMemoryFilmStorage filmStorage;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        Datasets.fillFilms(filmStorage, size);
+        next = size;
+    }
+
+    @Benchmark
+    public Film create() {
+        return filmStorage.create(Datasets.film(next++));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Популярные фильмы с фильтрами на каталоге из {@code films} фильмов. У фильма рейтинг и один-два жанра,
+ * выбранные равномерно, и год выхода с 1900 по 2023. Каждый десятый фильм получает до 20 лайков.
+ * Фильтры: {@code genre} — только жанр, {@code year} — только год, {@code all} — жанр, рейтинг и год.
+ * {@code filterCatalog} для сравнения отвечает обходом всего каталога.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FilteredPopularBenchmark {
+
+    private static final int GENRES = 6;
+    private static final int MPA_RATINGS = 5;
+    private static final int FIRST_YEAR = 1900;
+    private static final int YEARS = 124;
+    private static final int QUERIES = 1_024;
+
+    @Param({"1000000"})
+    private int films;
+
+    @Param({"genre", "year", "all"})
+    private String filter;
+
+    @Param({"10"})
+    private int count;
+
+    private InMemoryFilmStorage filmStorage;
+    private Integer[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(Datasets.SEED);
+        filmStorage = new InMemoryFilmStorage();
+        for (long i = 0; i < films; i++) {
+            Film film = Datasets.film(i);
+            film.setReleaseDate(LocalDate.of(FIRST_YEAR + random.nextInt(YEARS), 1 + random.nextInt(12), 1));
+            film.setMpa(new Mpa(1 + random.nextInt(MPA_RATINGS), null));
+            List<Genre> genres = new ArrayList<>();
+            genres.add(new Genre(1 + random.nextInt(GENRES), null));
+            if (random.nextBoolean()) {
+                genres.add(new Genre(1 + random.nextInt(GENRES), null));
+            }
+            film.setGenres(genres);
+            film = filmStorage.create(film);
+            if (i % 10 == 0) {
+                int likes = 1 + random.nextInt(20);
+                for (int like = 0; like < likes; like++) {
+                    filmStorage.addLike(film.getId(), 1 + random.nextInt(100_000));
+                }
+            }
+        }
+        queries = new Integer[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            Integer genreId = 1 + random.nextInt(GENRES);
+            Integer mpaId = 1 + random.nextInt(MPA_RATINGS);
+            Integer year = FIRST_YEAR + random.nextInt(YEARS);
+            queries[i] = switch (filter) {
+                case "genre" -> new Integer[]{genreId, null, null};
+                case "year" -> new Integer[]{null, null, year};
+                case "all" -> new Integer[]{genreId, mpaId, year};
+                default -> throw new IllegalArgumentException(filter);
+            };
+        }
+    }
+
+    @Benchmark
+    public List<Film> findPopular() {
+        Integer[] query = queries[next++ & (QUERIES - 1)];
+        return filmStorage.findPopular(count, query[0], query[1], query[2]);
+    }
+
+    @Benchmark
+    public List<Film> filterCatalog() {
+        Integer[] query = queries[next++ & (QUERIES - 1)];
+        return filmStorage.findAll().stream()
+                .filter(film -> query[0] == null || film.getGenres().contains(new Genre(query[0], null)))
+                .filter(film -> query[1] == null || query[1].equals(film.getMpa().getId()))
+                .filter(film -> query[2] == null || film.getReleaseDate().getYear() == query[2])
+                .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed()
+                        .thenComparingLong(Film::getId))
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный сценарий: поднимает приложение с медленным хранилищем (профиль {@code slow-storage})
+ * сначала на пуле платформенных потоков Tomcat, затем на виртуальных потоках, и гоняет одинаковую смесь
+ * запросов к {@code FilmController} и {@code UserController} из {@code load.clients} параллельных клиентов.
+ * Печатает пропускную способность и перцентили задержки для обоих режимов.
+ * <p>
+ * Запуск: {@code mvn -P benchmark test-compile exec:java
+ * -Dexec.mainClass=ru.yandex.practicum.filmorate.benchmark.LoadScenario -Dload.clients=1000}
+ */
+public final class LoadScenario {
+
+    private static final int FILMS = 1_000;
+    private static final int USERS = 1_000;
+
+    private LoadScenario() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("load.clients", 500);
+        int warmupSeconds = Integer.getInteger("load.warmup-s", 5);
+        int durationSeconds = Integer.getInteger("load.duration-s", 20);
+        long latencyMs = Long.getLong("load.latency-ms", 10L);
+        int tomcatThreads = Integer.getInteger("load.tomcat-threads", 200);
+
+        List<String> report = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                    .profiles("slow-storage")
+                    .run("--server.port=0",
+                            "--spring.threads.virtual.enabled=" + virtual,
+                            "--server.tomcat.threads.max=" + tomcatThreads,
+                            "--filmorate.slow-storage.latency-ms=" + latencyMs,
+                            "--logging.level.org.zalando.logbook=OFF",
+                            "--logging.level.root=WARN")) {
+                seed(context.getBean(FilmStorage.class), context.getBean(UserStorage.class));
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                run(port, clients, warmupSeconds);
+                Result result = run(port, clients, durationSeconds);
+                report.add(String.format("%-9s %10.0f %9.1f %9.1f %9.1f %8d",
+                        virtual ? "virtual" : "platform", result.throughput(),
+                        result.percentile(0.50), result.percentile(0.99), result.percentile(0.999), result.errors));
+            }
+        }
+        System.out.printf("clients=%d, latency=%dms, tomcat threads=%d, duration=%ds%n",
+                clients, latencyMs, tomcatThreads, durationSeconds);
+        System.out.printf("%-9s %10s %9s %9s %9s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors");
+        report.forEach(System.out::println);
+    }
+
+    private static void seed(FilmStorage filmStorage, UserStorage userStorage) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < USERS; i++) {
+                long index = i;
+                executor.submit(() -> userStorage.create(Datasets.user(index)));
+            }
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < FILMS; i++) {
+                long index = i;
+                executor.submit(() -> filmStorage.create(Datasets.film(index)));
+            }
+            for (long userId = 1; userId <= USERS; userId++) {
+                long id = userId;
+                executor.submit(() -> userStorage.addFriend(id, 1 + id % USERS));
+            }
+        }
+    }
+
+    private static Result run(int port, int clients, int seconds) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String base = "http://localhost:" + port;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> futures = new ArrayList<>(clients);
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                SplittableRandom random = new SplittableRandom(Datasets.SEED + i);
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() - deadline < 0) {
+                        HttpRequest request = nextRequest(base, random);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (java.io.IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        List<long[]> perClient = new ArrayList<>(clients);
+        for (Future<long[]> future : futures) {
+            perClient.add(future.get());
+        }
+        long[] all = perClient.stream().flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(all);
+        return new Result(all, elapsedSeconds, errors.get());
+    }
+
+    /**
+     * Смесь запросов: лайк, популярные фильмы, друзья и общие друзья пользователя.
+     * Каждый запрос делает от одного до трех обращений к хранилищу.
+     */
+    private static HttpRequest nextRequest(String base, SplittableRandom random) {
+        long filmId = 1 + random.nextInt(FILMS);
+        long userId = 1 + random.nextInt(USERS);
+        long otherId = 1 + random.nextInt(USERS);
+        return switch (random.nextInt(4)) {
+            case 0 -> HttpRequest.newBuilder(URI.create(base + "/films/" + filmId + "/like/" + userId))
+                    .PUT(HttpRequest.BodyPublishers.noBody()).build();
+            case 1 -> HttpRequest.newBuilder(URI.create(base + "/films/popular?count=10")).GET().build();
+            case 2 -> HttpRequest.newBuilder(URI.create(base + "/users/" + userId + "/friends")).GET().build();
+            default -> HttpRequest.newBuilder(URI.create(base + "/users/" + userId + "/friends/common/" + otherId))
+                    .GET().build();
+        };
+    }
+
+    private record Result(long[] latencies, double elapsedSeconds, long errors) {
+
+        double throughput() {
+            return latencies.length / elapsedSeconds;
+        }
+
+        double percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.metrics.StorageTimingAspect;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена инструментирования: те же вызовы сервисов и хранилищ без метрик ({@code plain}) и через прокси
+ * с {@link TimedAspect} и {@link StorageTimingAspect} поверх реестра Prometheus ({@code timed}),
+ * как их собирает Spring в приложении.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private static final int SIZE = 100_000;
+    private static final int LIKES_PER_FILM = 5;
+    private static final int FRIENDS_PER_USER = 10;
+
+    @Param({"plain", "timed"})
+    private String metrics;
+
+    private FilmStorage filmStorage;
+    private FilmService filmService;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        Datasets.fillUsers(users, SIZE);
+        Datasets.fillFriends(users, SIZE, FRIENDS_PER_USER);
+        Datasets.fillFilms(films, SIZE);
+        Datasets.fillLikes(films, SIZE, SIZE, LIKES_PER_FILM);
+        if (metrics.equals("timed")) {
+            MeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+            StorageTimingAspect storageAspect = new StorageTimingAspect(registry);
+            TimedAspect timedAspect = new TimedAspect(registry);
+            filmStorage = proxy(films, storageAspect);
+            UserStorage userStorage = proxy(users, storageAspect);
+            filmService = proxy(new FilmService(filmStorage, userStorage, Optional.empty()), timedAspect);
+            userService = proxy(new UserService(userStorage, filmStorage, Optional.empty()), timedAspect);
+        } else {
+            filmStorage = films;
+            filmService = new FilmService(films, users, Optional.empty());
+            userService = new UserService(users, films, Optional.empty());
+        }
+    }
+
+    @Benchmark
+    public Film findFilmById() {
+        return filmStorage.findById(randomId());
+    }
+
+    @Benchmark
+    public void addLike() {
+        filmService.addLike(randomId(), randomId());
+    }
+
+    @Benchmark
+    public List<Film> getMostPopularFilms() {
+        return filmService.getMostPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userService.getFriends(randomId());
+    }
+
+    private static long randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(SIZE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, Object aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return (T) factory.getProxy();
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.journal.PersistenceManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время старта с диска: загрузка снимка с {@code size} фильмами и пользователями
+ * плюс доигрывание журнала из {@code size / 10} лайков, сделанных после снимка.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RecoveryBenchmark {
+
+    @Param({"100000", "1000000", "3000000"})
+    private int size;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("filmorate-recovery");
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceManager manager = new PersistenceManager(filmStorage, userStorage, dir, 50, 0);
+        manager.start();
+        Datasets.fillUsers(userStorage, size);
+        Datasets.fillFilms(filmStorage, size);
+        Datasets.fillLikes(filmStorage, size, size, 3);
+        manager.snapshot();
+
+        SplittableRandom random = new SplittableRandom(Datasets.SEED + 2);
+        for (int i = 0; i < size / 10; i++) {
+            filmStorage.addLike(1 + random.nextInt(size), 1 + random.nextInt(size));
+        }
+        manager.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage recover() throws IOException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        new PersistenceManager(filmStorage, new InMemoryUserStorage(), dir, 50, 0).recover();
+        return filmStorage;
+    }
+}
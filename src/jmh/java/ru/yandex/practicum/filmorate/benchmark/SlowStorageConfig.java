@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+/**
+ * Профиль {@code slow-storage}: каждый вызов хранилища фильмов и пользователей блокирует поток
+ * на {@code filmorate.slow-storage.latency-ms} миллисекунд, имитируя сетевой поход в базу.
+ * Хранилища заворачиваются в прокси по интерфейсу, поэтому профиль несовместим с сохранением на диск,
+ * которому нужны конкретные in-memory классы.
+ */
+@Configuration
+@Profile("slow-storage")
+public class SlowStorageConfig {
+
+    @Bean
+    public static BeanPostProcessor slowStoragePostProcessor(Environment environment) {
+        long latencyMs = environment.getProperty("filmorate.slow-storage.latency-ms", Long.class, 10L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof FilmStorage) {
+                    return slow(FilmStorage.class, bean, latencyMs);
+                }
+                if (bean instanceof UserStorage) {
+                    return slow(UserStorage.class, bean, latencyMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static Object slow(Class<?> type, Object target, long latencyMs) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() != Object.class) {
+                Thread.sleep(latencyMs);
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int FRIENDS_PER_USER = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        Datasets.fillUsers(userStorage, size);
+        Datasets.fillFriends(userStorage, size, FRIENDS_PER_USER);
+        userService = new UserService(userStorage, new InMemoryFilmStorage(), Optional.empty());
+    }
+
+    @Benchmark
+    public void addFriend() {
+        long userId = randomUserId();
+        long friendId = randomUserId();
+        if (userId != friendId) {
+            userService.addFriend(userId, friendId);
+        }
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userService.getFriends(randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userService.getCommonFriends(randomUserId(), randomUserId());
+    }
+
+    private long randomUserId() {
+        return 1 + ThreadLocalRandom.current().nextInt(size);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.LikePipeline;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.journal.PersistenceManager;
+
+import java.util.Optional;
+
+@Configuration
+@ConditionalOnProperty(name = "filmorate.likes.async.enabled", havingValue = "true")
+public class LikePipelineConfig {
+
+    /**
+     * Зависимость от {@link PersistenceManager} нужна только для порядка остановки:
+     * очередь лайков дописывается в хранилище раньше, чем снимается финальный снимок.
+     */
+    @Bean(destroyMethod = "close")
+    public LikePipeline likePipeline(FilmStorage filmStorage,
+                                     @Value("${filmorate.likes.async.queue-capacity:100000}") int capacity,
+                                     @Value("${filmorate.likes.async.batch-size:1000}") int batchSize,
+                                     @Value("${filmorate.likes.async.backpressure:block}") String backpressure,
+                                     @Value("${filmorate.likes.async.offer-timeout-ms:100}") long offerTimeoutMs,
+                                     @Value("${filmorate.likes.async.flush-timeout-ms:5000}") long flushTimeoutMs,
+                                     Optional<PersistenceManager> persistenceManager) {
+        return new LikePipeline(filmStorage, capacity, batchSize,
+                LikePipeline.Backpressure.valueOf(backpressure.toUpperCase()), offerTimeoutMs, flushTimeoutMs);
+    }
+}
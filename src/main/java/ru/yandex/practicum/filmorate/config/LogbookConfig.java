@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+@Configuration
+public class LogbookConfig {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /**
+     * В журнал попадает доля запросов {@code filmorate.logging.sample-rate}. Остальные Logbook не обрабатывает
+     * вовсе: их тела не буферизуются и не форматируются. Исключения {@code logbook.exclude} применяются поверх.
+     */
+    @Bean
+    public Predicate<HttpRequest> requestCondition(@Value("${filmorate.logging.sample-rate:1.0}") double sampleRate) {
+        if (sampleRate >= 1) {
+            return request -> true;
+        }
+        return request -> ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Тело ответа не логируется для потоковых NDJSON-выгрузок и для GET-запросов к спискам
+     * из {@code filmorate.logging.get-body-excludes}: решение принимается до вызова обработчика,
+     * поэтому такие ответы не буферизуются в памяти.
+     */
+    @Bean
+    public Strategy logbookStrategy(@Value("${filmorate.logging.get-body-excludes:}") List<String> getBodyExcludes) {
+        return new Strategy() {
+            @Override
+            public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+                return isStreaming(request) || isExcludedGet(request, getBodyExcludes)
+                        ? response.withoutBody() : response.withBody();
+            }
+        };
+    }
+
+    private static boolean isStreaming(HttpRequest request) {
+        String accept = request.getHeaders().getFirst("Accept");
+        return accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+    }
+
+    private static boolean isExcludedGet(HttpRequest request, List<String> patterns) {
+        if (!"GET".equals(request.getMethod())) {
+            return false;
+        }
+        String path = request.getPath();
+        for (String pattern : patterns) {
+            if (PATH_MATCHER.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
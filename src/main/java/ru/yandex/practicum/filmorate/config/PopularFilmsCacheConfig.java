@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+@Configuration
+public class PopularFilmsCacheConfig {
+
+    /**
+     * Списки сериализуются тем же {@link ObjectMapper}, что и обычные ответы, поэтому формат не меняется.
+     */
+    @Bean
+    public PopularFilmsCache popularFilmsCache(FilmStorage filmStorage, FilmService filmService, ObjectMapper objectMapper,
+                                               @Value("${filmorate.popular-cache.max-entries:64}") int maxEntries,
+                                               @Value("${filmorate.popular-cache.staleness-ms:0}") long stalenessMs) {
+        return new PopularFilmsCache(filmStorage, filmService, objectMapper, maxEntries, stalenessMs);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.controller;
+
+/**
+ * Строгие ETag для списков, построенные по версиям хранилищ. Версии ведутся в памяти и начинаются заново
+ * после перезапуска, поэтому в тег входит метка запуска процесса: старый тег не совпадет с новыми данными.
+ */
+final class ETags {
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {
+    }
+
+    static String of(String resource, long version) {
+        return "\"" + resource + "-" + EPOCH + "-" + version + "\"";
+    }
+
+    /**
+     * Совпадает ли {@code etag} с одним из тегов заголовков If-None-Match. Сравнение слабое, как в
+     * {@link org.springframework.web.context.request.WebRequest#checkNotModified(String)}.
+     */
+    static boolean matches(String[] ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String header : ifNoneMatch) {
+            for (String tag : header.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
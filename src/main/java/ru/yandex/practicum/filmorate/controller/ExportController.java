@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Потоковая выгрузка фильмов и пользователей в формате NDJSON (одна JSON-запись на строку).
+ * Выбирается заголовком {@code Accept: application/x-ndjson} у {@code GET /films} и {@code GET /users}
+ * и принимает те же параметры, что и JSON-ответ по этим адресам.
+ * Каталог читается страницами по {@link #PAGE_SIZE} записей через {@code findPage}, и каждая страница
+ * сериализуется прямо в ответ, поэтому и с хранилищем в памяти, и с базой данных одновременно загружено
+ * не больше одной страницы. Выгрузка не снимок: запись, измененная во время выгрузки, попадет в нее в одном из
+ * состояний, но не больше одного раза. Фильтр по дате выхода выбирается целиком через {@code findReleased},
+ * и в базе данных его расход памяти растет с числом подходящих фильмов.
+ */
+@RestController
+@Validated
+public class ExportController {
+
+    static final int PAGE_SIZE = 1000;
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ExportController(FilmStorage filmStorage, UserStorage userStorage, ObjectMapper objectMapper) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping(value = "/films", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilms(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo) {
+        if (releasedFrom != null || releasedTo != null) {
+            List<Film> films = filmStorage.findReleased(releasedFrom, releasedTo);
+            return stream(out -> writeRecords(films, out));
+        }
+        return stream(out -> writePages(filmStorage::findPage, Film::getId, 0, Long.MAX_VALUE, out));
+    }
+
+    @GetMapping(value = "/films", params = "limit", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilmPage(@RequestParam @Positive int limit,
+                                                                @RequestParam(defaultValue = "0") long after) {
+        return stream(out -> writePages(filmStorage::findPage, Film::getId, after, limit, out));
+    }
+
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return stream(out -> writePages(userStorage::findPage, User::getId, 0, Long.MAX_VALUE, out));
+    }
+
+    @GetMapping(value = "/users", params = "limit", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUserPage(@RequestParam @Positive int limit,
+                                                                @RequestParam(defaultValue = "0") long after) {
+        return stream(out -> writePages(userStorage::findPage, User::getId, after, limit, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeRecords(Iterable<?> records, OutputStream out) throws IOException {
+        ObjectWriter writer = writer();
+        try (JsonGenerator generator = createGenerator(out)) {
+            for (Object record : records) {
+                writeRecord(writer, generator, record);
+            }
+        }
+    }
+
+    /**
+     * Пишет до {@code limit} записей с id больше {@code afterId}, запрашивая их страницами.
+     * Следующая страница начинается после id последней записи предыдущей.
+     */
+    private <T> void writePages(PageReader<T> reader, ToLongFunction<T> idOf, long afterId, long limit,
+                                OutputStream out) throws IOException {
+        ObjectWriter writer = writer();
+        try (JsonGenerator generator = createGenerator(out)) {
+            long remaining = limit;
+            while (remaining > 0) {
+                int pageSize = (int) Math.min(PAGE_SIZE, remaining);
+                List<T> page = reader.findPage(afterId, pageSize);
+                for (T record : page) {
+                    writeRecord(writer, generator, record);
+                }
+                if (page.size() < pageSize) {
+                    return;
+                }
+                remaining -= page.size();
+                afterId = idOf.applyAsLong(page.get(page.size() - 1));
+            }
+        }
+    }
+
+    private ObjectWriter writer() {
+        return objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private void writeRecord(ObjectWriter writer, JsonGenerator generator, Object record) throws IOException {
+        writer.writeValue(generator, record);
+        generator.writeRaw('\n');
+    }
+
+    @FunctionalInterface
+    private interface PageReader<T> {
+        List<T> findPage(long afterId, int limit);
+    }
+}
@@ -1,19 +1,31 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.ErrorResponse;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 
@@ -26,18 +38,44 @@ public class FilmController {
 
     private final FilmStorage filmStorage;
     private final FilmService filmService;
+    private final PopularFilmsCache popularFilmsCache;
 
     @Autowired
-    public FilmController(FilmStorage filmStorage, FilmService filmService) {
+    public FilmController(FilmStorage filmStorage, FilmService filmService, PopularFilmsCache popularFilmsCache) {
         this.filmStorage = filmStorage;
         this.filmService = filmService;
+        this.popularFilmsCache = popularFilmsCache;
     }
 
+    /**
+     * Списки фильмов отдаются с ETag по версии каталога. Версия читается до выборки, поэтому тег
+     * не новее данных, а при совпадении с If-None-Match ответ 304 уходит без выборки и сериализации.
+     * С параметрами {@code releasedFrom} и {@code releasedTo} отдаются фильмы, вышедшие в этот период.
+     */
     @GetMapping
-    public ResponseEntity<Collection<Film>> findAll() {
+    public ResponseEntity<Collection<Film>> findAll(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+            WebRequest request) {
+        if (request.checkNotModified(ETags.of("films", filmStorage.version()))) {
+            return null;
+        }
+        if (releasedFrom != null || releasedTo != null) {
+            return ResponseEntity.ok(filmStorage.findReleased(releasedFrom, releasedTo));
+        }
         return ResponseEntity.ok(filmStorage.findAll());
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<Film>> findPage(@RequestParam @Positive int limit,
+                                               @RequestParam(defaultValue = "0") long after,
+                                               WebRequest request) {
+        if (request.checkNotModified(ETags.of("films", filmStorage.version()))) {
+            return null;
+        }
+        return ResponseEntity.ok(filmStorage.findPage(after, limit));
+    }
+
     @PostMapping
     public ResponseEntity<Film> createFilm(@Valid @RequestBody Film film) {
         Film createdFilm = filmStorage.create(film);
@@ -52,6 +90,41 @@ public class FilmController {
         return ResponseEntity.ok(updatedFilm);
     }
 
+    @PatchMapping
+    public ResponseEntity<Film> patchFilm(@RequestBody FilmPatch patch) {
+        Film patchedFilm = filmStorage.patch(patch);
+        log.info("Частично обновлен фильм: {}", patchedFilm);
+        return ResponseEntity.ok(patchedFilm);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchResult>> createFilms(@RequestBody List<Film> films) {
+        List<BatchResult> results = filmService.createFilms(films);
+        log.info("Пакетное создание фильмов: {} элементов", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<BatchResult>> deleteFilms(@RequestBody List<Long> ids) {
+        List<BatchResult> results = filmService.deleteFilms(ids);
+        log.info("Пакетное удаление фильмов: {} элементов", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteFilm(@PathVariable long id) {
+        filmService.deleteFilm(id);
+        log.info("Удален фильм {}", id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/likes/batch")
+    public ResponseEntity<List<BatchResult>> addLikes(@RequestBody List<Like> likes) {
+        List<BatchResult> results = filmService.addLikes(likes);
+        log.info("Пакетное добавление лайков: {} элементов", results.size());
+        return ResponseEntity.ok(results);
+    }
+
     @PutMapping("/{id}/like/{userId}")
     public ResponseEntity<?> addLike(@PathVariable long id, @PathVariable long userId) {
         try {
@@ -72,8 +145,35 @@ public class FilmController {
         }
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<List<Film>> searchFilms(@RequestParam(defaultValue = "") String q,
+                                                  @RequestParam(defaultValue = "10") @Positive int limit) {
+        return ResponseEntity.ok(filmStorage.search(q, limit));
+    }
+
+    /**
+     * Список отдается готовым JSON из {@link PopularFilmsCache}: повторные запросы с теми же {@code count}
+     * и фильтрами не пересчитывают и не сериализуют его, пока каталог не изменился.
+     * Если клиент прислал тег текущей версии каталога, 304 отдается сразу, без обращения к кешу.
+     * Иначе ETag строится по версии, на которой посчитана запись кеша, а не по текущей версии каталога:
+     * в окне устаревания кеш отдает старый список, и тег текущей версии закрепил бы его у клиента.
+     */
     @GetMapping("/popular")
-    public ResponseEntity<List<Film>> getMostPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        return ResponseEntity.ok(filmService.getMostPopularFilms(count));
+    public ResponseEntity<byte[]> getMostPopularFilms(
+            @RequestParam(defaultValue = "10") int count,
+            @RequestParam(required = false) Integer genreId,
+            @RequestParam(required = false) Integer mpaId,
+            @RequestParam(required = false) @Min(1895) @Max(9999) Integer year,
+            WebRequest request) {
+        String current = ETags.of("popular", filmStorage.version());
+        if (ETags.matches(request.getHeaderValues(HttpHeaders.IF_NONE_MATCH), current)
+                && request.checkNotModified(current)) {
+            return null;
+        }
+        PopularFilmsCache.Cached popular = popularFilmsCache.get(count, genreId, mpaId, year);
+        if (request.checkNotModified(ETags.of("popular", popular.version()))) {
+            return null;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(popular.json());
     }
 }
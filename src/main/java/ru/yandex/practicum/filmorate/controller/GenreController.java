@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.DictionaryStorage;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/genres")
+public class GenreController {
+
+    private final DictionaryStorage dictionaryStorage;
+
+    @Autowired
+    public GenreController(DictionaryStorage dictionaryStorage) {
+        this.dictionaryStorage = dictionaryStorage;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Genre>> findAll() {
+        return ResponseEntity.ok(dictionaryStorage.findGenres());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Genre> findById(@PathVariable int id) {
+        Genre genre = dictionaryStorage.findGenre(id);
+        if (genre == null) {
+            throw new NotFoundException("Жанр не найден");
+        }
+        return ResponseEntity.ok(genre);
+    }
+}
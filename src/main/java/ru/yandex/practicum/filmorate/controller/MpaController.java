@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.DictionaryStorage;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/mpa")
+public class MpaController {
+
+    private final DictionaryStorage dictionaryStorage;
+
+    @Autowired
+    public MpaController(DictionaryStorage dictionaryStorage) {
+        this.dictionaryStorage = dictionaryStorage;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Mpa>> findAll() {
+        return ResponseEntity.ok(dictionaryStorage.findMpaRatings());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Mpa> findById(@PathVariable int id) {
+        Mpa mpa = dictionaryStorage.findMpa(id);
+        if (mpa == null) {
+            throw new NotFoundException("Рейтинг MPA не найден");
+        }
+        return ResponseEntity.ok(mpa);
+    }
+}
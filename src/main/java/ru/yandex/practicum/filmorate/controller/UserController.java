@@ -1,13 +1,18 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
@@ -35,6 +40,11 @@ public class UserController {
         return userStorage.findAll();
     }
 
+    @GetMapping(params = "limit")
+    public List<User> findPage(@RequestParam @Positive int limit, @RequestParam(defaultValue = "0") long after) {
+        return userStorage.findPage(after, limit);
+    }
+
     @PostMapping
     public ResponseEntity<User> createUser(@Valid @RequestBody User user) {
         User createdUser = userStorage.create(user);
@@ -49,6 +59,41 @@ public class UserController {
         return ResponseEntity.ok(updatedUser);
     }
 
+    @PatchMapping
+    public ResponseEntity<User> patchUser(@RequestBody UserPatch patch) {
+        User patchedUser = userStorage.patch(patch);
+        log.info("Частично обновлен пользователь: {}", patchedUser);
+        return ResponseEntity.ok(patchedUser);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchResult>> createUsers(@RequestBody List<User> users) {
+        List<BatchResult> results = userService.createUsers(users);
+        log.info("Пакетное создание пользователей: {} элементов", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<BatchResult>> deleteUsers(@RequestBody List<Long> ids) {
+        List<BatchResult> results = userService.deleteUsers(ids);
+        log.info("Пакетное удаление пользователей: {} элементов", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @DeleteMapping("/{userId}")
+    public ResponseEntity<Void> deleteUser(@PathVariable long userId) {
+        userService.deleteUser(userId);
+        log.info("Удален пользователь {}", userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/friends/batch")
+    public ResponseEntity<List<BatchResult>> addFriends(@RequestBody List<Friendship> friendships) {
+        List<BatchResult> results = userService.addFriends(friendships);
+        log.info("Пакетное добавление друзей: {} элементов", results.size());
+        return ResponseEntity.ok(results);
+    }
+
     @PutMapping("/{userId}/friends/{friendId}")
     public ResponseEntity<Void> addFriend(@PathVariable long userId, @PathVariable long friendId) {
         userService.addFriend(userId, friendId);
@@ -64,7 +109,10 @@ public class UserController {
     }
 
     @GetMapping("/{userId}/friends")
-    public ResponseEntity<List<User>> getFriends(@PathVariable long userId) {
+    public ResponseEntity<List<User>> getFriends(@PathVariable long userId, WebRequest request) {
+        if (request.checkNotModified(ETags.of("friends", userStorage.friendsVersion(userId)))) {
+            return null;
+        }
         List<User> friends = userService.getFriends(userId);
         return ResponseEntity.ok(friends);
     }
@@ -74,4 +122,10 @@ public class UserController {
         List<User> commonFriends = userService.getCommonFriends(userId, otherUserId);
         return ResponseEntity.ok(commonFriends);
     }
+
+    @GetMapping("/{userId}/recommendations")
+    public ResponseEntity<List<User>> getRecommendations(@PathVariable long userId,
+                                                         @RequestParam(defaultValue = "10") @Positive int limit) {
+        return ResponseEntity.ok(userService.getRecommendations(userId, limit));
+    }
 }
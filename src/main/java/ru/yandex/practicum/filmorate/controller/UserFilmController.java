@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.List;
+
+/**
+ * Фильмы в разрезе пользователя.
+ */
+@RestController
+@RequestMapping("/users/{userId}")
+@Validated
+public class UserFilmController {
+
+    private final FilmService filmService;
+
+    @Autowired
+    public UserFilmController(FilmService filmService) {
+        this.filmService = filmService;
+    }
+
+    @GetMapping("/films/recommended")
+    public ResponseEntity<List<Film>> getRecommendedFilms(@PathVariable long userId,
+                                                          @RequestParam(defaultValue = "10") @Positive int limit) {
+        return ResponseEntity.ok(filmService.getRecommendedFilms(userId, limit));
+    }
+
+    /**
+     * Фильмы, которые лайкнул пользователь, страницами по возрастанию id: следующая страница
+     * запрашивается с {@code after}, равным id последнего фильма предыдущей.
+     */
+    @GetMapping("/likes")
+    public ResponseEntity<List<Film>> getLikedFilms(@PathVariable long userId,
+                                                    @RequestParam(defaultValue = "100") @Positive int limit,
+                                                    @RequestParam(defaultValue = "0") long after) {
+        return ResponseEntity.ok(filmService.getLikedFilms(userId, after, limit));
+    }
+}
@@ -1,18 +1,26 @@
 package ru.yandex.practicum.filmorate.exception;
 
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.yandex.practicum.filmorate.model.ErrorResponse;
 
 @ControllerAdvice
 public class ErrorHandler {
 
-    @ExceptionHandler({ConstraintViolationException.class, MethodArgumentNotValidException.class})
+    /**
+     * Тип ответа задан явно: ошибку параметров выгрузки в NDJSON тоже нужно отдать в JSON,
+     * а не получить отказ из-за заголовка Accept.
+     */
+    @ExceptionHandler({ConstraintViolationException.class, MethodArgumentNotValidException.class,
+            MethodArgumentTypeMismatchException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(Exception ex) {
         String errorMessage;
@@ -20,11 +28,13 @@ public class ErrorHandler {
             errorMessage = "Validation failed: " + ex.getMessage();
         } else if (ex instanceof MethodArgumentNotValidException) {
             errorMessage = ((MethodArgumentNotValidException) ex).getBindingResult().getAllErrors().get(0).getDefaultMessage();
+        } else if (ex instanceof MethodArgumentTypeMismatchException mismatch) {
+            errorMessage = "Некорректное значение параметра " + mismatch.getName();
         } else {
             errorMessage = "Validation error";
         }
         ErrorResponse response = new ErrorResponse(errorMessage);
-        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(response);
     }
 
     @ExceptionHandler(ValidationException.class)
@@ -39,6 +49,12 @@ public class ErrorHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleOverloadedException(OverloadedException e) {
+        ErrorResponse response = new ErrorResponse(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleException(Exception e) {
         ErrorResponse response = new ErrorResponse("Внутренняя ошибка сервера: " + e.getMessage());
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+/**
+ * Размеры хранилищ: число фильмов, пользователей, лайков и записей о дружбе.
+ * Значения читаются при каждом сборе метрик, поэтому in-memory хранилища держат их готовыми счетчиками,
+ * а не пересчитывают по коллекциям.
+ */
+@Component
+public class StorageMetrics implements MeterBinder {
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    public StorageMetrics(FilmStorage filmStorage, UserStorage userStorage) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.films", filmStorage, FilmStorage::count)
+                .description("Число фильмов")
+                .register(registry);
+        Gauge.builder("filmorate.likes", filmStorage, FilmStorage::countLikes)
+                .description("Число лайков")
+                .register(registry);
+        Gauge.builder("filmorate.users", userStorage, UserStorage::count)
+                .description("Число пользователей")
+                .register(registry);
+        Gauge.builder("filmorate.friend.links", userStorage, UserStorage::countFriendLinks)
+                .description("Число записей о дружбе, по две на пару друзей")
+                .register(registry);
+    }
+}
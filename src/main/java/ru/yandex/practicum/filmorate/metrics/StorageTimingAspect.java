@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймер {@code filmorate.storage} на каждый метод интерфейсов хранилищ с тегами {@code storage}, {@code method}
+ * и {@code exception}. Таймеры успешных вызовов кешируются по методу, поэтому горячий путь — это поиск
+ * в {@link ConcurrentHashMap} и запись в таймер, без сборки идентификатора метрики на каждый вызов.
+ * Служебные методы in-memory хранилищ (восстановление, журнал) не входят в интерфейсы и не замеряются.
+ */
+@Aspect
+@Component
+public class StorageTimingAspect {
+
+    static final String METRIC = "filmorate.storage";
+
+    private final MeterRegistry registry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    public StorageTimingAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* ru.yandex.practicum.filmorate.storage.FilmStorage.*(..))"
+            + " || execution(* ru.yandex.practicum.filmorate.storage.UserStorage.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            successTimer(joinPoint).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(joinPoint, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer successTimer(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, m -> timer(joinPoint, "none"));
+        }
+        return timer;
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, String exception) {
+        return Timer.builder(METRIC)
+                .tag("storage", joinPoint.getTarget().getClass().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception)
+                .register(registry);
+    }
+}
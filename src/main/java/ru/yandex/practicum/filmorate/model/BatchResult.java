@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат обработки одного элемента пакетного запроса.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchResult {
+    private int index;
+    private int status;
+    private Long id;
+    private String error;
+
+    public static BatchResult success(int index, int status, Long id) {
+        return new BatchResult(index, status, id, null);
+    }
+
+    public static BatchResult failure(int index, int status, String error) {
+        return new BatchResult(index, status, null, error);
+    }
+}
@@ -8,10 +8,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Film.
@@ -35,5 +36,16 @@ public class Film {
     @Positive(message = "Продолжительность фильма должна быть положительной")
     private int duration;
 
-    private Set<Long> likes = new HashSet<>();
+    private LongSet likes = new LongSet();
+
+    private Mpa mpa;
+
+    private List<Genre> genres = new ArrayList<>();
+
+    /**
+     * Фильм без рейтинга и жанров.
+     */
+    public Film(Long id, String name, String description, LocalDate releaseDate, int duration, LongSet likes) {
+        this(id, name, description, releaseDate, duration, likes, null, new ArrayList<>());
+    }
 }
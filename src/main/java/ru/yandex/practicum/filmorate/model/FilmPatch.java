@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Частичное обновление фильма: меняются только заданные поля, {@code null} означает «оставить как есть».
+ * Лайки через патч не меняются.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilmPatch {
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDate releaseDate;
+    private Integer duration;
+    private Mpa mpa;
+    /**
+     * Новый список жанров целиком; пустой список убирает все жанры.
+     */
+    private List<Genre> genres;
+
+    public FilmPatch(Long id, String name, String description, LocalDate releaseDate, Integer duration) {
+        this(id, name, description, releaseDate, duration, null, null);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Дружба двух пользователей.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Friendship {
+    private long userId;
+    private long friendId;
+}
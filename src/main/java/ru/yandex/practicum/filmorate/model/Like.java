@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Лайк фильма пользователем.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Like {
+    private long filmId;
+    private long userId;
+}
@@ -5,10 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * User.
@@ -34,5 +33,5 @@ public class User {
     @Past(message = "Дата рождения должна быть в прошлом")
     private LocalDate birthday;
 
-    private Set<Long> friends = new HashSet<>();
+    private LongSet friends = new LongSet();
 }
\ No newline at end of file
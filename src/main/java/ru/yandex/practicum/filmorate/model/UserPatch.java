@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Частичное обновление пользователя: меняются только заданные поля, {@code null} означает «оставить как есть».
+ * Пустое имя, как и при создании, заменяется логином. Друзья через патч не меняются.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPatch {
+    private Long id;
+    private String email;
+    private String login;
+    private String name;
+    private LocalDate birthday;
+}
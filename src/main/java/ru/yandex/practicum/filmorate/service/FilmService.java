@@ -1,31 +1,63 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
+import ru.yandex.practicum.filmorate.util.LruCache;
 
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class FilmService {
 
+    private static final long RECOMMENDATION_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int MAX_CACHED_RECOMMENDATIONS = 10_000;
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final LruCache<Long, Recommendations> recommendationCache = new LruCache<>(MAX_CACHED_RECOMMENDATIONS);
+    private final LikePipeline likePipeline;
 
+    /**
+     * Если включен асинхронный прием лайков, одиночные лайки после проверок уходят в {@link LikePipeline},
+     * а рекомендации сбрасываются, когда пачка уже применена к хранилищу. Тогда же перепроверяются авторы
+     * лайков, как и после синхронной записи (см. {@link #removeLikesOfDeletedUsers}).
+     */
     @Autowired
-    public FilmService(FilmStorage filmStorage, UserStorage userStorage) {
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, Optional<LikePipeline> likePipeline) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.likePipeline = likePipeline.orElse(null);
+        if (this.likePipeline != null) {
+            this.likePipeline.onUserLikesChanged(userId -> {
+                removeLikesOfDeletedUsers(LongSet.of(userId));
+                invalidateRecommendations(userId);
+            });
+        }
     }
 
+    @Timed("filmorate.service")
     public void addLike(long filmId, long userId) {
         Film film = filmStorage.findById(filmId);
         if (film == null) {
@@ -37,16 +69,18 @@ public class FilmService {
             throw new NotFoundException("Попытка добавить лайк несуществующим пользователем");
         }
 
-        Set<Long> likes = film.getLikes();
-        if (likes == null) {
-            likes = new HashSet<>();
-            film.setLikes(likes);
+        if (likePipeline != null) {
+            likePipeline.submit(filmId, userId, true);
+            return;
         }
-
-        likes.add(userId);
-        filmStorage.update(film);
+        filmStorage.addLike(filmId, userId);
+        if (!removeLikesOfDeletedUsers(LongSet.of(userId)).isEmpty()) {
+            throw new NotFoundException("Попытка добавить лайк несуществующим пользователем");
+        }
+        invalidateRecommendations(userId);
     }
 
+    @Timed("filmorate.service")
     public void removeLike(long filmId, long userId) {
         Film film = filmStorage.findById(filmId);
         if (film == null) {
@@ -58,15 +92,209 @@ public class FilmService {
             throw new NotFoundException("Попытка удалить лайк несуществующим пользователем");
         }
 
-        film.getLikes().remove(userId);
-        filmStorage.update(film);
+        if (likePipeline != null) {
+            likePipeline.submit(filmId, userId, false);
+            return;
+        }
+        filmStorage.removeLike(filmId, userId);
+        invalidateRecommendations(userId);
     }
 
+    /**
+     * Удаляет фильм. Кешированные рекомендации не сбрасываются: отсутствующие фильмы пропускаются при чтении кеша.
+     */
+    @Timed("filmorate.service")
+    public void deleteFilm(long filmId) {
+        filmStorage.delete(filmId);
+    }
 
+    @Timed("filmorate.service")
     public List<Film> getMostPopularFilms(int count) {
-        return filmStorage.findAll().stream()
-                .sorted(Comparator.comparingInt(film -> -film.getLikes().size()))
-                .limit(count)
-                .collect(Collectors.toList());
+        return filmStorage.findPopular(count);
+    }
+
+    /**
+     * Возвращает самые популярные фильмы среди подходящих под заданные фильтры; фильтр null не применяется.
+     */
+    @Timed("filmorate.service")
+    public List<Film> getMostPopularFilms(int count, Integer genreId, Integer mpaId, Integer year) {
+        return filmStorage.findPopular(count, genreId, mpaId, year);
+    }
+
+    /**
+     * Возвращает страницу фильмов, которые лайкнул пользователь, по возрастанию id.
+     */
+    public List<Film> getLikedFilms(long userId, long afterFilmId, int limit) {
+        if (userStorage.findById(userId) == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        return filmStorage.findLikedBy(userId, afterFilmId, limit);
+    }
+
+    /**
+     * Возвращает рекомендации фильмов по лайкам похожих пользователей.
+     * Результат кешируется на минуту и сбрасывается сразу, когда пользователь сам ставит или убирает лайк;
+     * лайки других пользователей учитываются после истечения срока.
+     */
+    public List<Film> getRecommendedFilms(long userId, int limit) {
+        if (userStorage.findById(userId) == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        Recommendations cached = recommendationCache.get(userId);
+        if (cached != null && cached.covers(limit, System.nanoTime())) {
+            List<Film> films = new ArrayList<>(Math.min(limit, cached.filmIds.length));
+            for (int i = 0; i < cached.filmIds.length && films.size() < limit; i++) {
+                Film film = filmStorage.findById(cached.filmIds[i]);
+                if (film != null) {
+                    films.add(film);
+                }
+            }
+            return films;
+        }
+        List<Film> films = filmStorage.findRecommended(userId, limit);
+        Recommendations computed = new Recommendations(limit, films.stream().mapToLong(Film::getId).toArray(),
+                System.nanoTime() + RECOMMENDATION_TTL_NANOS);
+        if (cached != null) {
+            recommendationCache.replace(userId, cached, computed);
+        } else {
+            recommendationCache.putIfAbsent(userId, computed);
+        }
+        return films;
+    }
+
+    public List<BatchResult> createFilms(List<Film> films) {
+        List<BatchResult> results = new ArrayList<>(films.size());
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            if (film == null) {
+                results.add(BatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), "Пустой элемент"));
+                continue;
+            }
+            Set<ConstraintViolation<Film>> violations = validator.validate(film);
+            if (!violations.isEmpty()) {
+                results.add(BatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), violations.iterator().next().getMessage()));
+                continue;
+            }
+            try {
+                results.add(BatchResult.success(i, HttpStatus.CREATED.value(), filmStorage.create(film).getId()));
+            } catch (ValidationException e) {
+                results.add(BatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), e.getMessage()));
+            } catch (NotFoundException e) {
+                results.add(BatchResult.failure(i, HttpStatus.NOT_FOUND.value(), e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    public List<BatchResult> deleteFilms(List<Long> filmIds) {
+        List<BatchResult> results = new ArrayList<>(filmIds.size());
+        for (int i = 0; i < filmIds.size(); i++) {
+            Long filmId = filmIds.get(i);
+            if (filmId == null) {
+                results.add(BatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), "Пустой элемент"));
+                continue;
+            }
+            try {
+                filmStorage.delete(filmId);
+                results.add(BatchResult.success(i, HttpStatus.NO_CONTENT.value(), filmId));
+            } catch (NotFoundException e) {
+                results.add(BatchResult.failure(i, HttpStatus.NOT_FOUND.value(), e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Добавляет пачку лайков: сначала проверяет все элементы, затем применяет лайки,
+     * сгруппировав их по фильму, чтобы каждый фильм обновлялся одной операцией хранилища.
+     */
+    public List<BatchResult> addLikes(List<Like> likes) {
+        BatchResult[] results = new BatchResult[likes.size()];
+        Map<Long, LongSet> usersByFilm = new LinkedHashMap<>();
+        for (int i = 0; i < likes.size(); i++) {
+            Like like = likes.get(i);
+            if (like == null) {
+                results[i] = BatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), "Пустой элемент");
+            } else if (filmStorage.findById(like.getFilmId()) == null) {
+                results[i] = BatchResult.failure(i, HttpStatus.NOT_FOUND.value(), "Фильм не найден");
+            } else if (userStorage.findById(like.getUserId()) == null) {
+                results[i] = BatchResult.failure(i, HttpStatus.NOT_FOUND.value(),
+                        "Попытка добавить лайк несуществующим пользователем");
+            } else {
+                usersByFilm.computeIfAbsent(like.getFilmId(), id -> new LongSet()).add(like.getUserId());
+                results[i] = BatchResult.success(i, HttpStatus.OK.value(), like.getFilmId());
+            }
+        }
+        usersByFilm.forEach((filmId, userIds) -> {
+            try {
+                filmStorage.addLikes(filmId, userIds);
+                LongSet deleted = removeLikesOfDeletedUsers(userIds);
+                userIds.forEachLong(this::invalidateRecommendations);
+                for (int i = 0; i < results.length && !deleted.isEmpty(); i++) {
+                    Like like = likes.get(i);
+                    if (results[i].getError() == null && filmId.equals(like.getFilmId())
+                            && deleted.contains(like.getUserId())) {
+                        results[i] = BatchResult.failure(i, HttpStatus.NOT_FOUND.value(),
+                                "Попытка добавить лайк несуществующим пользователем");
+                    }
+                }
+            } catch (NotFoundException e) {
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i].getError() == null && filmId.equals(results[i].getId())) {
+                        results[i] = BatchResult.failure(i, HttpStatus.NOT_FOUND.value(), e.getMessage());
+                    }
+                }
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Снимает все лайки тех из {@code userIds}, кто уже удален, и возвращает их. Вызывается после записи лайков:
+     * лайк мог пройти проверку пользователя до его удаления, а записаться уже после того, как удаление сняло
+     * его лайки. Удаление сначала убирает пользователя и только потом снимает лайки, поэтому такая запись
+     * либо попадет под снятие, либо ее перепроверка увидит пользователя удаленным.
+     */
+    private LongSet removeLikesOfDeletedUsers(LongSet userIds) {
+        LongSet deleted = new LongSet();
+        userIds.forEachLong(userId -> {
+            if (userStorage.findById(userId) == null) {
+                deleted.add(userId);
+            }
+        });
+        if (!deleted.isEmpty()) {
+            filmStorage.removeUserLikes(deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Помечает рекомендации пользователя устаревшими. Метка — новый объект, поэтому вычисление,
+     * начатое до изменения лайков, не сможет заменить ее своим результатом. Метки, как и результаты,
+     * вытесняются из кеша, когда к ним долго не обращаются.
+     */
+    private void invalidateRecommendations(long userId) {
+        recommendationCache.put(userId, Recommendations.stale());
+    }
+
+    private static final class Recommendations {
+        private final int limit;
+        private final long[] filmIds;
+        private final long expiresAt;
+
+        private Recommendations(int limit, long[] filmIds, long expiresAt) {
+            this.limit = limit;
+            this.filmIds = filmIds;
+            this.expiresAt = expiresAt;
+        }
+
+        static Recommendations stale() {
+            return new Recommendations(0, new long[0], Long.MIN_VALUE);
+        }
+
+        boolean covers(int requestedLimit, long now) {
+            return expiresAt != Long.MIN_VALUE && now - expiresAt < 0
+                    && (limit >= requestedLimit || filmIds.length < limit);
+        }
     }
-}
\ No newline at end of file
+}
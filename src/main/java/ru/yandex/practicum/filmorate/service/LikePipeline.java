@@ -0,0 +1,258 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Асинхронный прием лайков. События копятся в ограниченной очереди, фоновый поток забирает их пачками,
+ * схлопывает по фильму (для пары фильм–пользователь побеждает последнее событие) и применяет
+ * одной операцией хранилища на фильм. При заполненной очереди действует выбранная политика {@link Backpressure}.
+ * {@link #close()} дожидается применения всех принятых событий.
+ * {@link #flush()} стоит на пути запросов удаления, поэтому ждет не дольше {@code flushTimeoutMs}
+ * и сразу отказывает, если фоновый поток уже завершился и принятые события применить некому.
+ */
+@Slf4j
+public class LikePipeline implements AutoCloseable {
+
+    public enum Backpressure {
+        /**
+         * Ждать места в очереди не дольше заданного времени, затем отказать.
+         */
+        BLOCK,
+        /**
+         * Отказать сразу.
+         */
+        REJECT
+    }
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final FilmStorage filmStorage;
+    private final BlockingQueue<LikeEvent> queue;
+    private final int batchSize;
+    private final Backpressure backpressure;
+    private final long offerTimeoutMs;
+    private final long flushTimeoutMs;
+    private final Thread worker;
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progress = progressLock.newCondition();
+
+    private volatile boolean running = true;
+    private boolean workerStopped;
+    private volatile LongConsumer userLikesChanged = userId -> {
+    };
+    private long submitted;
+    private long applied;
+
+    public LikePipeline(FilmStorage filmStorage, int capacity, int batchSize, Backpressure backpressure,
+                        long offerTimeoutMs, long flushTimeoutMs) {
+        this.filmStorage = filmStorage;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.backpressure = backpressure;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.flushTimeoutMs = flushTimeoutMs;
+        this.worker = new Thread(this::run, "like-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Подписка на пользователей, чьи лайки изменились после применения пачки.
+     */
+    public void onUserLikesChanged(LongConsumer listener) {
+        this.userLikesChanged = listener;
+    }
+
+    /**
+     * Состояние приема проверяется под тем же замком, под которым {@link #close()} его останавливает:
+     * иначе событие, принятое после остановки, легло бы в очередь, которую поток уже не разбирает.
+     */
+    public void submit(long filmId, long userId, boolean like) {
+        LikeEvent event = new LikeEvent(filmId, userId, like);
+        boolean accepted;
+        progressLock.lock();
+        try {
+            ensureAccepting();
+            accepted = queue.offer(event);
+            if (accepted) {
+                submitted++;
+            }
+        } finally {
+            progressLock.unlock();
+        }
+        if (!accepted && backpressure == Backpressure.BLOCK) {
+            accepted = offerWithTimeout(event);
+        }
+        if (!accepted) {
+            throw new OverloadedException("Очередь лайков переполнена, повторите запрос позже");
+        }
+    }
+
+    /**
+     * Дожидается применения всех событий, принятых до вызова.
+     *
+     * @throws OverloadedException если события не применены за {@code flushTimeoutMs},
+     *                             фоновый поток завершился или ожидание прервано
+     */
+    public void flush() {
+        progressLock.lock();
+        try {
+            long target = submitted;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(flushTimeoutMs);
+            while (applied < target) {
+                if (workerStopped) {
+                    throw new OverloadedException("Прием лайков остановлен, часть лайков не применена");
+                }
+                if (remaining <= 0) {
+                    throw new OverloadedException("Очередь лайков не успела примениться, повторите запрос позже");
+                }
+                remaining = progress.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OverloadedException("Ожидание очереди лайков прервано");
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        progressLock.lock();
+        try {
+            running = false;
+        } finally {
+            progressLock.unlock();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean offerWithTimeout(LikeEvent event) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        progressLock.lock();
+        try {
+            while (true) {
+                ensureAccepting();
+                if (queue.offer(event)) {
+                    break;
+                }
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = progress.awaitNanos(remaining);
+            }
+            submitted++;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    private void ensureAccepting() {
+        if (!running || workerStopped) {
+            throw new OverloadedException("Прием лайков остановлен");
+        }
+    }
+
+    private void run() {
+        try {
+            drain();
+        } finally {
+            progressLock.lock();
+            try {
+                workerStopped = true;
+                progress.signalAll();
+            } finally {
+                progressLock.unlock();
+            }
+        }
+    }
+
+    private void drain() {
+        List<LikeEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                LikeEvent first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ошибка применения пачки лайков", e);
+            } finally {
+                progressLock.lock();
+                try {
+                    applied += batch.size();
+                    progress.signalAll();
+                } finally {
+                    progressLock.unlock();
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<LikeEvent> batch) {
+        Map<Long, FilmChanges> changesByFilm = new LinkedHashMap<>();
+        LongSet users = new LongSet();
+        for (LikeEvent event : batch) {
+            FilmChanges changes = changesByFilm.computeIfAbsent(event.filmId(), id -> new FilmChanges());
+            if (event.like()) {
+                changes.removed.remove(event.userId());
+                changes.added.add(event.userId());
+            } else {
+                changes.added.remove(event.userId());
+                changes.removed.add(event.userId());
+            }
+            users.add(event.userId());
+        }
+        changesByFilm.forEach((filmId, changes) -> {
+            try {
+                if (!changes.removed.isEmpty()) {
+                    filmStorage.removeLikes(filmId, changes.removed);
+                }
+                if (!changes.added.isEmpty()) {
+                    filmStorage.addLikes(filmId, changes.added);
+                }
+            } catch (NotFoundException e) {
+                log.warn("Лайки фильма {} пропущены: {}", filmId, e.getMessage());
+            }
+        });
+        users.forEachLong(userLikesChanged);
+    }
+
+    private record LikeEvent(long filmId, long userId, boolean like) {
+    }
+
+    private static final class FilmChanges {
+        private final LongSet added = new LongSet();
+        private final LongSet removed = new LongSet();
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Кеш сериализованных списков популярных фильмов по значению {@code count} и фильтрам. Запись годна,
+ * пока не изменилась версия каталога, или в течение окна устаревания, если оно задано.
+ * Одновременные промахи по одному ключу ждут одно вычисление. Число записей ограничено, вытесняется давно не запрашиваемая.
+ */
+public class PopularFilmsCache {
+
+    private final FilmStorage filmStorage;
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final long stalenessNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Key, Entry> entries;
+
+    public PopularFilmsCache(FilmStorage filmStorage, FilmService filmService, ObjectMapper objectMapper,
+                             int maxEntries, long stalenessMs) {
+        this.filmStorage = filmStorage;
+        this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.stalenessNanos = TimeUnit.MILLISECONDS.toNanos(stalenessMs);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Возвращает список популярных фильмов в JSON вместе с версией каталога, на которой он посчитан.
+     * Версия читается до вычисления, поэтому список может оказаться новее своей версии, но не старше.
+     * В окне устаревания версия записи может отставать от текущей версии каталога.
+     * Фильтры по жанру, рейтингу и году со значением null не применяются.
+     */
+    public Cached get(int count, Integer genreId, Integer mpaId, Integer year) {
+        Key key = new Key(count, genreId, mpaId, year);
+        long version = filmStorage.version();
+        long now = System.nanoTime();
+        Entry entry;
+        boolean owner = false;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+            if (entry == null || !entry.fresh(version, now, stalenessNanos)) {
+                entry = new Entry(version, now);
+                entries.put(key, entry);
+                owner = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (owner) {
+            compute(key, entry);
+        }
+        try {
+            return entry.json.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void compute(Key key, Entry entry) {
+        try {
+            entry.json.complete(new Cached(entry.version, objectMapper.writeValueAsBytes(
+                    filmService.getMostPopularFilms(key.count(), key.genreId(), key.mpaId(), key.year()))));
+        } catch (JsonProcessingException | RuntimeException e) {
+            entry.json.completeExceptionally(e instanceof RuntimeException ? e
+                    : new IllegalStateException("Не удалось сериализовать популярные фильмы", e));
+            lock.lock();
+            try {
+                entries.remove(key, entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public record Cached(long version, byte[] json) {
+    }
+
+    private record Key(int count, Integer genreId, Integer mpaId, Integer year) {
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final long createdAt;
+        private final CompletableFuture<Cached> json = new CompletableFuture<>();
+
+        private Entry(long version, long createdAt) {
+            this.version = version;
+            this.createdAt = createdAt;
+        }
+
+        boolean fresh(long currentVersion, long now, long stalenessNanos) {
+            return version == currentVersion || now - createdAt < stalenessNanos;
+        }
+    }
+}
@@ -1,23 +1,47 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
+import ru.yandex.practicum.filmorate.util.LruCache;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
+@Timed("filmorate.service")
 public class UserService {
 
+    private static final int MAX_CACHED_RECOMMENDATIONS = 10_000;
+
     private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final LikePipeline likePipeline;
+    private final LruCache<Long, Recommendations> recommendationCache = new LruCache<>(MAX_CACHED_RECOMMENDATIONS);
+    private final AtomicLong friendshipVersion = new AtomicLong();
 
+    /**
+     * Если включен асинхронный прием лайков, перед снятием лайков удаленных пользователей очередь дописывается
+     * в хранилище: иначе лайк, принятый до удаления, мог бы примениться уже после него.
+     */
     @Autowired
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, FilmStorage filmStorage, Optional<LikePipeline> likePipeline) {
         this.userStorage = userStorage;
+        this.filmStorage = filmStorage;
+        this.likePipeline = likePipeline.orElse(null);
     }
 
     public void addFriend(long userId, long friendId) {
@@ -26,10 +50,8 @@ public class UserService {
         if (user == null || friend == null) {
             throw new NotFoundException("Пользователь или друг не найден");
         }
-        user.getFriends().add(friendId);
-        friend.getFriends().add(userId);
-        userStorage.update(user);
-        userStorage.update(friend);
+        userStorage.addFriend(userId, friendId);
+        invalidateRecommendations(userId, friendId);
     }
 
     public void removeFriend(long userId, long friendId) {
@@ -38,20 +60,15 @@ public class UserService {
         if (user == null || friend == null) {
             throw new NotFoundException("Пользователь или друг не найден");
         }
-        user.getFriends().remove(friendId);
-        friend.getFriends().remove(userId);
-        userStorage.update(user);
-        userStorage.update(friend);
+        userStorage.removeFriend(userId, friendId);
+        invalidateRecommendations(userId, friendId);
     }
 
+    /**
+     * Друзья читаются одним обращением к хранилищу; друг, удаляемый в этот момент, пропускается.
+     */
     public List<User> getFriends(long userId) {
-        User user = userStorage.findById(userId);
-        if (user == null) {
-            throw new NotFoundException("Пользователь не найден");
-        }
-        return user.getFriends().stream()
-                .map(userStorage::findById)
-                .collect(Collectors.toList());
+        return new ArrayList<>(userStorage.findFriendsById(userId));
     }
 
     public List<User> getCommonFriends(long userId, long otherUserId) {
@@ -60,12 +77,32 @@ public class UserService {
         if (user == null || otherUser == null) {
             throw new NotFoundException("Пользователь не найден");
         }
-        Set<Long> commonFriendIds = user.getFriends().stream()
-                .filter(otherUser.getFriends()::contains)
-                .collect(Collectors.toSet());
-        return commonFriendIds.stream()
-                .map(userStorage::findById)
-                .collect(Collectors.toList());
+        return userStorage.findCommonFriends(userId, otherUserId);
+    }
+
+    /**
+     * Возвращает рекомендации «возможно, вы знакомы». Результат кешируется до изменения дружбы
+     * с участием пользователя или его друзей; из заполненного кеша вытесняются давно не запрошенные записи.
+     */
+    public List<User> getRecommendations(long userId, int limit) {
+        Recommendations cached = recommendationCache.get(userId);
+        if (cached != null && cached.covers(limit)) {
+            List<User> recommendations = new ArrayList<>(Math.min(limit, cached.ids().length));
+            for (int i = 0; i < cached.ids().length && recommendations.size() < limit; i++) {
+                User user = userStorage.findById(cached.ids()[i]);
+                if (user != null) {
+                    recommendations.add(user);
+                }
+            }
+            return recommendations;
+        }
+        long version = friendshipVersion.get();
+        List<User> recommendations = userStorage.findRecommendations(userId, limit);
+        Recommendations computed = new Recommendations(limit,
+                recommendations.stream().mapToLong(User::getId).toArray());
+        recommendationCache.compute(userId,
+                (id, previous) -> friendshipVersion.get() == version ? computed : previous);
+        return recommendations;
     }
 
     public User findById(long userId) {
@@ -75,4 +112,136 @@ public class UserService {
         }
         return user;
     }
+
+    /**
+     * Удаляет пользователя, его дружбы и лайки. Пользователь удаляется первым: новые дружбы с ним хранилище
+     * уже отклонит, а лайки снимаются после этого по обратному индексу фильмов пользователя. Лайк, проверенный
+     * до удаления и записанный после снятия, снимает {@link FilmService}, перепроверив автора после записи.
+     */
+    public void deleteUser(long userId) {
+        User user = findById(userId);
+        userStorage.delete(userId);
+        removeLikes(LongSet.of(userId));
+        invalidateRecommendations(user);
+    }
+
+    /**
+     * Удаляет пачку пользователей, а затем снимает лайки всех удаленных одним проходом,
+     * в котором каждый их фильм меняется один раз.
+     */
+    public List<BatchResult> deleteUsers(List<Long> userIds) {
+        List<BatchResult> results = new ArrayList<>(userIds.size());
+        LongSet deleted = new LongSet();
+        for (int i = 0; i < userIds.size(); i++) {
+            Long userId = userIds.get(i);
+            if (userId == null) {
+                results.add(BatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), "Пустой элемент"));
+                continue;
+            }
+            User user = userStorage.findById(userId);
+            try {
+                if (user == null) {
+                    throw new NotFoundException("Пользователь не найден");
+                }
+                userStorage.delete(userId);
+                deleted.add(userId);
+                invalidateRecommendations(user);
+                results.add(BatchResult.success(i, HttpStatus.NO_CONTENT.value(), userId));
+            } catch (NotFoundException e) {
+                results.add(BatchResult.failure(i, HttpStatus.NOT_FOUND.value(), e.getMessage()));
+            }
+        }
+        if (!deleted.isEmpty()) {
+            removeLikes(deleted);
+        }
+        return results;
+    }
+
+    public List<BatchResult> createUsers(List<User> users) {
+        List<BatchResult> results = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (user == null) {
+                results.add(BatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), "Пустой элемент"));
+                continue;
+            }
+            try {
+                results.add(BatchResult.success(i, HttpStatus.CREATED.value(), userStorage.create(user).getId()));
+            } catch (ConstraintViolationException | ValidationException e) {
+                results.add(BatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Добавляет пачку дружб: сначала проверяет существование всех пользователей, затем применяет связи.
+     */
+    public List<BatchResult> addFriends(List<Friendship> friendships) {
+        BatchResult[] results = new BatchResult[friendships.size()];
+        for (int i = 0; i < friendships.size(); i++) {
+            Friendship friendship = friendships.get(i);
+            if (friendship == null) {
+                results[i] = BatchResult.failure(i, HttpStatus.BAD_REQUEST.value(), "Пустой элемент");
+            } else if (userStorage.findById(friendship.getUserId()) == null
+                    || userStorage.findById(friendship.getFriendId()) == null) {
+                results[i] = BatchResult.failure(i, HttpStatus.NOT_FOUND.value(), "Пользователь или друг не найден");
+            }
+        }
+        for (int i = 0; i < friendships.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            Friendship friendship = friendships.get(i);
+            try {
+                userStorage.addFriend(friendship.getUserId(), friendship.getFriendId());
+                invalidateRecommendations(friendship.getUserId(), friendship.getFriendId());
+                results[i] = BatchResult.success(i, HttpStatus.OK.value(), friendship.getUserId());
+            } catch (NotFoundException e) {
+                results[i] = BatchResult.failure(i, HttpStatus.NOT_FOUND.value(), "Пользователь или друг не найден");
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Сбрасывает кеш рекомендаций всех, чьи друзья друзей могли измениться: обоих участников и их друзей.
+     * Версия увеличивается до сброса, чтобы вычисление, начатое до изменения, не вернуло устаревший результат в кеш.
+     */
+    private void invalidateRecommendations(long userId, long friendId) {
+        friendshipVersion.incrementAndGet();
+        for (long id : new long[]{userId, friendId}) {
+            recommendationCache.remove(id);
+            User user = userStorage.findById(id);
+            if (user != null) {
+                user.getFriends().forEachLong(recommendationCache::remove);
+            }
+        }
+    }
+
+    private void removeLikes(LongSet deletedUserIds) {
+        if (likePipeline != null) {
+            likePipeline.flush();
+        }
+        filmStorage.removeUserLikes(deletedUserIds);
+    }
+
+    /**
+     * Сбрасывает кеш удаленного пользователя и его бывших друзей: их друзья друзей шли через него.
+     */
+    private void invalidateRecommendations(User deleted) {
+        friendshipVersion.incrementAndGet();
+        recommendationCache.remove(deleted.getId());
+        deleted.getFriends().forEachLong(recommendationCache::remove);
+    }
+
+    private record Recommendations(int limit, long[] ids) {
+
+        /**
+         * Кешированный список подходит, если он посчитан для не меньшего лимита или содержит всех кандидатов.
+         */
+        boolean covers(int requestedLimit) {
+            return limit >= requestedLimit || ids.length < limit;
+        }
+    }
 }
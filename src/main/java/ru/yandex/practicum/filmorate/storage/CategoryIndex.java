@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс категории фильмов, например жанра или рейтинга: id категории → фильмы. Категорий мало,
+ * а фильмов в каждой много, поэтому проверка «фильм в категории» — это поиск в множестве, а не чтение фильма.
+ * Вызывающий код меняет индекс под блокировкой фильма, а индекс берет блокировку категории. Чтение не блокируется.
+ */
+class CategoryIndex {
+
+    private static final LongSet NO_FILMS = new LongSet();
+
+    private final Map<Integer, LongSet> filmsByCategory = new ConcurrentHashMap<>();
+    private final StripedLock locks = new StripedLock();
+
+    /**
+     * Переносит в индекс смену категорий фильма.
+     */
+    void replace(long filmId, Collection<Integer> previous, Collection<Integer> categories) {
+        for (int categoryId : previous) {
+            if (!categories.contains(categoryId)) {
+                locks.withLock(categoryId, () -> {
+                    LongSet films = filmsByCategory.get(categoryId);
+                    if (films != null && films.remove(filmId) && films.isEmpty()) {
+                        filmsByCategory.remove(categoryId);
+                    }
+                });
+            }
+        }
+        for (int categoryId : categories) {
+            locks.withLock(categoryId, () -> {
+                filmsByCategory.computeIfAbsent(categoryId, id -> new LongSet()).add(filmId);
+            });
+        }
+    }
+
+    /**
+     * Возвращает фильмы категории. Множество живое: его нельзя менять, а при чтении оно может меняться.
+     */
+    LongSet filmsOf(int categoryId) {
+        return filmsByCategory.getOrDefault(categoryId, NO_FILMS);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Загруженные справочники: списки по возрастанию id и поиск по id без обращения к источнику.
+ */
+final class Dictionaries {
+
+    private final List<Genre> genres;
+    private final List<Mpa> mpaRatings;
+    private final Map<Integer, Genre> genresById;
+    private final Map<Integer, Mpa> mpaById;
+
+    Dictionaries(List<Genre> genres, List<Mpa> mpaRatings) {
+        this.genres = List.copyOf(genres);
+        this.mpaRatings = List.copyOf(mpaRatings);
+        this.genresById = genres.stream().collect(Collectors.toUnmodifiableMap(Genre::getId, Function.identity()));
+        this.mpaById = mpaRatings.stream().collect(Collectors.toUnmodifiableMap(Mpa::getId, Function.identity()));
+    }
+
+    List<Genre> genres() {
+        return genres;
+    }
+
+    List<Mpa> mpaRatings() {
+        return mpaRatings;
+    }
+
+    Genre genre(int id) {
+        return genresById.get(id);
+    }
+
+    Mpa mpa(int id) {
+        return mpaById.get(id);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+
+/**
+ * Справочники жанров и рейтингов MPA. Справочники не меняются во время работы, поэтому реализации
+ * держат их в памяти, а возвращаемые списки неизменяемы.
+ */
+public interface DictionaryStorage {
+    List<Genre> findGenres();
+
+    /**
+     * Возвращает жанр или null, если его нет в справочнике.
+     */
+    Genre findGenre(int id);
+
+    List<Mpa> findMpaRatings();
+
+    /**
+     * Возвращает рейтинг или null, если его нет в справочнике.
+     */
+    Mpa findMpa(int id);
+}
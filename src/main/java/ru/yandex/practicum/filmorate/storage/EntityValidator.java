@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Проверки сущностей, общие для всех реализаций хранилищ.
+ */
+class EntityValidator {
+
+    private static final LocalDate EARLIEST_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    void validateFilm(Film film) {
+        validateReleaseDate(film.getReleaseDate());
+    }
+
+    /**
+     * Проверяет только поля, заданные в патче: остальные поля фильма уже прошли проверку раньше.
+     */
+    void validateFilmPatch(FilmPatch patch) {
+        Set<ConstraintViolation<Film>> violations = new HashSet<>();
+        if (patch.getName() != null) {
+            violations.addAll(validator.validateValue(Film.class, "name", patch.getName()));
+        }
+        if (patch.getDescription() != null) {
+            violations.addAll(validator.validateValue(Film.class, "description", patch.getDescription()));
+        }
+        if (patch.getDuration() != null) {
+            violations.addAll(validator.validateValue(Film.class, "duration", patch.getDuration()));
+        }
+        throwIfInvalid(violations);
+        if (patch.getReleaseDate() != null) {
+            validateReleaseDate(patch.getReleaseDate());
+        }
+    }
+
+    void validateUser(User user) {
+        throwIfInvalid(validator.validate(user));
+    }
+
+    /**
+     * Проверяет только поля, заданные в патче: остальные поля пользователя уже прошли проверку раньше.
+     */
+    void validateUserPatch(UserPatch patch) {
+        Set<ConstraintViolation<User>> violations = new HashSet<>();
+        if (patch.getEmail() != null) {
+            violations.addAll(validator.validateValue(User.class, "email", patch.getEmail()));
+        }
+        if (patch.getLogin() != null) {
+            violations.addAll(validator.validateValue(User.class, "login", patch.getLogin()));
+        }
+        if (patch.getBirthday() != null) {
+            violations.addAll(validator.validateValue(User.class, "birthday", patch.getBirthday()));
+        }
+        throwIfInvalid(violations);
+    }
+
+    private void validateReleaseDate(LocalDate releaseDate) {
+        if (releaseDate == null || releaseDate.isBefore(EARLIEST_RELEASE_DATE)) {
+            throw new ValidationException("Дата релиза не может быть раньше 28 декабря 1895 года");
+        }
+    }
+
+    private static <T> void throwIfInvalid(Set<ConstraintViolation<T>> violations) {
+        if (!violations.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (ConstraintViolation<T> violation : violations) {
+                sb.append(violation.getMessage()).append("; ");
+            }
+            throw new ConstraintViolationException(sb.toString(), violations);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Приводит рейтинг и жанры фильма к записям справочника: клиент передает только id, а хранится
+ * и отдается полная запись. Жанры упорядочиваются по id без повторов. Общая часть всех хранилищ фильмов.
+ */
+final class FilmCategories {
+
+    private FilmCategories() {
+    }
+
+    static void resolve(Film film, DictionaryStorage dictionaries) {
+        film.setMpa(resolveMpa(film.getMpa(), dictionaries));
+        film.setGenres(resolveGenres(film.getGenres(), dictionaries));
+    }
+
+    static Mpa resolveMpa(Mpa mpa, DictionaryStorage dictionaries) {
+        if (mpa == null) {
+            return null;
+        }
+        Mpa resolved = mpa.getId() == null ? null : dictionaries.findMpa(mpa.getId());
+        if (resolved == null) {
+            throw new NotFoundException("Рейтинг MPA не найден");
+        }
+        return resolved;
+    }
+
+    static List<Genre> resolveGenres(List<Genre> genres, DictionaryStorage dictionaries) {
+        if (genres == null) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Genre> resolved = new TreeMap<>();
+        for (Genre genre : genres) {
+            Genre known = genre == null || genre.getId() == null ? null : dictionaries.findGenre(genre.getId());
+            if (known == null) {
+                throw new NotFoundException("Жанр не найден");
+            }
+            resolved.put(known.getId(), known);
+        }
+        return new ArrayList<>(resolved.values());
+    }
+
+    static List<Integer> mpaIds(Film film) {
+        return film == null || film.getMpa() == null ? List.of() : List.of(film.getMpa().getId());
+    }
+
+    static List<Integer> genreIds(Film film) {
+        return film == null ? List.of() : film.getGenres().stream().map(Genre::getId).toList();
+    }
+}
@@ -1,16 +1,104 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
 
 public interface FilmStorage {
     Collection<Film> findAll();
 
+    /**
+     * Возвращает до {@code limit} фильмов с id больше {@code afterId} в порядке возрастания id.
+     */
+    List<Film> findPage(long afterId, int limit);
+
+    /**
+     * Создает фильм без лайков: лайки из переданного объекта не учитываются.
+     */
     Film create(Film film);
 
+    /**
+     * Заменяет поля фильма. Лайки из переданного объекта не учитываются, у фильма остаются текущие —
+     * они меняются только методами лайков.
+     */
     Film update(Film film);
 
+    /**
+     * Меняет только заданные в патче поля фильма и проверяет только их.
+     */
+    Film patch(FilmPatch patch);
+
     Film findById(long id);
-}
 
+    /**
+     * Удаляет фильм вместе с его лайками.
+     */
+    void delete(long id);
+
+    void addLike(long filmId, long userId);
+
+    void removeLike(long filmId, long userId);
+
+    /**
+     * Добавляет фильму лайки сразу от нескольких пользователей за одну операцию.
+     */
+    void addLikes(long filmId, LongSet userIds);
+
+    /**
+     * Убирает у фильма лайки сразу нескольких пользователей за одну операцию.
+     */
+    void removeLikes(long filmId, LongSet userIds);
+
+    /**
+     * Убирает все лайки указанных пользователей, например после их удаления.
+     */
+    void removeUserLikes(LongSet userIds);
+
+    List<Film> findPopular(int count);
+
+    /**
+     * Возвращает фильмы, вышедшие с {@code from} по {@code to} включительно, по возрастанию даты релиза,
+     * при равенстве — по id. Граница null означает открытый конец периода.
+     */
+    List<Film> findReleased(LocalDate from, LocalDate to);
+
+    /**
+     * Возвращает до {@code count} самых популярных фильмов, подходящих под все заданные фильтры: жанр,
+     * рейтинг MPA и год выхода. Фильтр null не применяется.
+     */
+    List<Film> findPopular(int count, Integer genreId, Integer mpaId, Integer year);
+
+    /**
+     * Возвращает до {@code limit} фильмов с id больше {@code afterFilmId}, которые лайкнул пользователь,
+     * в порядке возрастания id.
+     */
+    List<Film> findLikedBy(long userId, long afterFilmId, int limit);
+
+    /**
+     * Возвращает до {@code limit} фильмов, которые лайкали пользователи с самыми похожими на {@code userId} лайками,
+     * исключая уже понравившиеся ему фильмы. Чем больше общих лайков у похожего пользователя, тем больше вес его фильмов.
+     */
+    List<Film> findRecommended(long userId, int limit);
+
+    /**
+     * Ищет фильмы, в названии или описании которых есть все слова запроса без учета регистра, причем последнее
+     * слово может быть началом слова. Возвращает до {@code limit} фильмов по убыванию числа лайков, при равенстве — по id.
+     */
+    List<Film> search(String query, int limit);
+
+    /**
+     * Версия каталога: растет после любого изменения фильмов или их лайков.
+     */
+    long version();
+
+    long count();
+
+    /**
+     * Возвращает суммарное число лайков всех фильмов.
+     */
+    long countLikes();
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Потокобезопасный генератор идентификаторов для хранилищ.
+ * Выдает возрастающие id за O(1) и не отстает от id, загруженных извне.
+ */
+public class IdGenerator {
+
+    private final AtomicLong lastId = new AtomicLong();
+
+    public long next() {
+        return lastId.incrementAndGet();
+    }
+
+    /**
+     * Резервирует непрерывный диапазон из {@code count} id и возвращает первый из них.
+     */
+    public long reserve(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Размер диапазона должен быть положительным");
+        }
+        return lastId.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Сдвигает счетчик так, чтобы следующие id были больше {@code id}.
+     */
+    public void advanceTo(long id) {
+        lastId.accumulateAndGet(id, Math::max);
+    }
+
+    public long current() {
+        return lastId.get();
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+
+/**
+ * Справочники для хранения в памяти. Совпадают с данными data.sql для хранилища в БД.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory", matchIfMissing = true)
+public class InMemoryDictionaryStorage implements DictionaryStorage {
+
+    private static final List<Genre> GENRES = List.of(
+            new Genre(1, "Комедия"),
+            new Genre(2, "Драма"),
+            new Genre(3, "Мультфильм"),
+            new Genre(4, "Триллер"),
+            new Genre(5, "Документальный"),
+            new Genre(6, "Боевик"));
+    private static final List<Mpa> MPA_RATINGS = List.of(
+            new Mpa(1, "G"),
+            new Mpa(2, "PG"),
+            new Mpa(3, "PG-13"),
+            new Mpa(4, "R"),
+            new Mpa(5, "NC-17"));
+
+    private final Dictionaries dictionaries = new Dictionaries(GENRES, MPA_RATINGS);
+
+    @Override
+    public List<Genre> findGenres() {
+        return dictionaries.genres();
+    }
+
+    @Override
+    public Genre findGenre(int id) {
+        return dictionaries.genre(id);
+    }
+
+    @Override
+    public List<Mpa> findMpaRatings() {
+        return dictionaries.mpaRatings();
+    }
+
+    @Override
+    public Mpa findMpa(int id) {
+        return dictionaries.mpa(id);
+    }
+}
@@ -1,43 +1,217 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.util.LongCounter;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
 
 
 @Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory", matchIfMissing = true)
 public class InMemoryFilmStorage implements FilmStorage {
 
-    private final Map<Long, Film> films = new HashMap<>();
+    static final int RECOMMENDATION_FAN_OUT = 1_000;
+    static final int SIMILAR_USERS = 50;
+    static final int SEARCH_SCAN_LIMIT = 5_000;
+    static final int SCAN_STEP_COST = 3;
+    static final int SEARCH_PREFIX_TOKENS = 8;
 
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    private final PopularityIndex popularity = new PopularityIndex();
+    private final LikeIndex likeIndex = new LikeIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final ReleaseDateIndex releaseDates = new ReleaseDateIndex();
+    private final CategoryIndex genreIndex = new CategoryIndex();
+    private final CategoryIndex mpaIndex = new CategoryIndex();
+    private final CategoryIndex yearIndex = new CategoryIndex();
+    private final IdGenerator idGenerator = new IdGenerator();
+    private final StripedLock locks = new StripedLock();
+    private final EntityValidator validator = new EntityValidator();
+    private final LongAdder filmCount = new LongAdder();
+    private final LongAdder likeCount = new LongAdder();
+    private final VersionClock versions = new VersionClock();
+    private final DictionaryStorage dictionaries;
+    private volatile MutationJournal journal = MutationJournal.NONE;
+
+    public InMemoryFilmStorage() {
+        this(new InMemoryDictionaryStorage());
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(DictionaryStorage dictionaries) {
+        this.dictionaries = dictionaries;
+    }
 
     @Override
     public Collection<Film> findAll() {
         return films.values();
     }
 
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Film create(Film film) {
-        validateFilm(film);
-        film.setId(getNextId());
-        films.put(film.getId(), film);
+        validator.validateFilm(film);
+        FilmCategories.resolve(film, dictionaries);
+        long id = idGenerator.next();
+        film.setId(id);
+        film.setLikes(new LongSet());
+        locks.withLock(id, () -> {
+            films.put(id, film);
+            filmCount.increment();
+            popularity.update(id, 0);
+            searchIndex.replace(id, null, film);
+            releaseDates.replace(id, null, film.getReleaseDate());
+            replaceCategories(id, null, film);
+            journal.filmSaved(film);
+            versions.tick();
+        });
         return film;
     }
 
     @Override
     public Film update(Film film) {
-        if (!films.containsKey(film.getId())) {
+        if (film.getId() == null) {
             throw new NotFoundException("Фильм не найден");
         }
-        validateFilm(film);
-        films.put(film.getId(), film);
-        return film;
+        return locks.withLock(film.getId(), () -> {
+            Film previous = getExisting(film.getId());
+            validator.validateFilm(film);
+            FilmCategories.resolve(film, dictionaries);
+            film.setLikes(previous.getLikes());
+            films.put(film.getId(), film);
+            searchIndex.replace(film.getId(), previous, film);
+            releaseDates.replace(film.getId(), previous.getReleaseDate(), film.getReleaseDate());
+            replaceCategories(film.getId(), previous, film);
+            journal.filmSaved(film);
+            versions.tick();
+            return film;
+        });
+    }
+
+    /**
+     * Собирает новый объект фильма из текущего и патча и заменяет им текущий, поэтому читатели без блокировки
+     * видят либо старую, либо новую версию целиком. Лайки переходят в новый объект без изменений,
+     * так что индексы лайков и популярности не трогаются.
+     */
+    @Override
+    public Film patch(FilmPatch patch) {
+        if (patch.getId() == null) {
+            throw new NotFoundException("Фильм не найден");
+        }
+        validator.validateFilmPatch(patch);
+        Mpa mpa = FilmCategories.resolveMpa(patch.getMpa(), dictionaries);
+        List<Genre> genres = patch.getGenres() == null ? null
+                : FilmCategories.resolveGenres(patch.getGenres(), dictionaries);
+        return locks.withLock(patch.getId(), () -> {
+            Film current = getExisting(patch.getId());
+            Film patched = new Film(current.getId(),
+                    patch.getName() != null ? patch.getName() : current.getName(),
+                    patch.getDescription() != null ? patch.getDescription() : current.getDescription(),
+                    patch.getReleaseDate() != null ? patch.getReleaseDate() : current.getReleaseDate(),
+                    patch.getDuration() != null ? patch.getDuration() : current.getDuration(),
+                    current.getLikes(),
+                    mpa != null ? mpa : current.getMpa(),
+                    genres != null ? genres : current.getGenres());
+            films.put(patched.getId(), patched);
+            searchIndex.replace(patched.getId(), current, patched);
+            releaseDates.replace(patched.getId(), current.getReleaseDate(), patched.getReleaseDate());
+            replaceCategories(patched.getId(), current, patched);
+            journal.filmSaved(patched);
+            versions.tick();
+            return patched;
+        });
+    }
+
+    /**
+     * Снимает фильм со всех индексов. Стоимость зависит только от самого фильма: его лайки убираются из обратного
+     * индекса по его же множеству лайков, токены и категории — по его полям, а каталог не обходится.
+     */
+    @Override
+    public void delete(long id) {
+        locks.withLock(id, () -> {
+            Film film = getExisting(id);
+            films.remove(id);
+            filmCount.decrement();
+            likeCount.add(-film.getLikes().size());
+            popularity.remove(id);
+            likeIndex.removeFilm(id, film.getLikes());
+            searchIndex.replace(id, film, null);
+            releaseDates.replace(id, film.getReleaseDate(), null);
+            replaceCategories(id, film, null);
+            journal.filmRemoved(id);
+            versions.tick();
+        });
+    }
+
+    /**
+     * Кладет фильм с уже назначенным id без проверок и без записи в журнал.
+     * Используется при восстановлении состояния из снимка и журнала.
+     */
+    public void restore(Film film) {
+        FilmCategories.resolve(film, dictionaries);
+        initLikes(film);
+        idGenerator.advanceTo(film.getId());
+        locks.withLock(film.getId(), () -> {
+            Film previous = films.put(film.getId(), film);
+            if (previous == null) {
+                filmCount.increment();
+            }
+            likeCount.add(film.getLikes().size() - (previous == null ? 0 : previous.getLikes().size()));
+            popularity.update(film.getId(), film.getLikes().size());
+            likeIndex.replace(film.getId(), previous == null ? null : previous.getLikes(), film.getLikes());
+            searchIndex.replace(film.getId(), previous, film);
+            releaseDates.replace(film.getId(), previous == null ? null : previous.getReleaseDate(),
+                    film.getReleaseDate());
+            replaceCategories(film.getId(), previous, film);
+            versions.tick();
+        });
+    }
+
+    /**
+     * Последний выданный id. Пишется в снимок, чтобы после восстановления не выдать повторно id удаленных фильмов.
+     */
+    public long lastId() {
+        return idGenerator.current();
+    }
+
+    /**
+     * Сдвигает счетчик так, чтобы новые id были больше {@code id}. Используется при восстановлении.
+     */
+    public void advanceIdsTo(long id) {
+        idGenerator.advanceTo(id);
+    }
+
+    public void setJournal(MutationJournal journal) {
+        this.journal = journal;
     }
 
     @Override
@@ -45,19 +219,383 @@ public class InMemoryFilmStorage implements FilmStorage {
         return films.get(id);
     }
 
-    private void validateFilm(Film film) {
-        LocalDate earliestReleaseDate = LocalDate.of(1895, 12, 28);
-        if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(earliestReleaseDate)) {
-            throw new ValidationException("Дата релиза не может быть раньше 28 декабря 1895 года");
+    @Override
+    public void addLike(long filmId, long userId) {
+        locks.withLock(filmId, () -> {
+            Film film = getExisting(filmId);
+            if (film.getLikes().add(userId)) {
+                likeCount.increment();
+                popularity.update(filmId, film.getLikes().size());
+                likeIndex.add(userId, filmId);
+                journal.likeAdded(filmId, userId);
+                versions.tick();
+            }
+        });
+    }
+
+    @Override
+    public void removeLike(long filmId, long userId) {
+        locks.withLock(filmId, () -> {
+            Film film = getExisting(filmId);
+            if (film.getLikes().remove(userId)) {
+                likeCount.decrement();
+                popularity.update(filmId, film.getLikes().size());
+                likeIndex.remove(userId, filmId);
+                journal.likeRemoved(filmId, userId);
+                versions.tick();
+            }
+        });
+    }
+
+    @Override
+    public void addLikes(long filmId, LongSet userIds) {
+        locks.withLock(filmId, () -> {
+            Film film = getExisting(filmId);
+            int before = film.getLikes().size();
+            userIds.forEachLong(userId -> {
+                if (film.getLikes().add(userId)) {
+                    likeIndex.add(userId, filmId);
+                    journal.likeAdded(filmId, userId);
+                }
+            });
+            if (film.getLikes().size() != before) {
+                likeCount.add(film.getLikes().size() - before);
+                popularity.update(filmId, film.getLikes().size());
+                versions.tick();
+            }
+        });
+    }
+
+    @Override
+    public void removeLikes(long filmId, LongSet userIds) {
+        locks.withLock(filmId, () -> removeLikes(getExisting(filmId), userIds));
+    }
+
+    /**
+     * Фильмы пользователей берутся из обратного индекса и группируются, чтобы каждый фильм менялся
+     * одной операцией под своей блокировкой. Фильм, удаленный параллельно, пропускается.
+     */
+    @Override
+    public void removeUserLikes(LongSet userIds) {
+        Map<Long, LongSet> usersByFilm = new HashMap<>();
+        userIds.forEachLong(userId -> likeIndex.filmsOf(userId).forEachLong(filmId -> {
+            usersByFilm.computeIfAbsent(filmId, id -> new LongSet()).add(userId);
+        }));
+        usersByFilm.forEach((filmId, users) -> locks.withLock(filmId, () -> {
+            Film film = films.get(filmId);
+            if (film != null) {
+                removeLikes(film, users);
+            }
+        }));
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        return popularity.top(count).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Фильмы берутся из обратного индекса лайков, а не обходом каталога. Множество фильмов пользователя
+     * не упорядочено, поэтому страница — это id больше {@code afterFilmId}, отсортированные и обрезанные
+     * до {@code limit}: стоимость растет с числом лайков пользователя, а не с размером каталога.
+     */
+    @Override
+    public List<Film> findLikedBy(long userId, long afterFilmId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        LongSet liked = likeIndex.filmsOf(userId);
+        long[] ids = new long[liked.size()];
+        int[] size = {0};
+        liked.forEachLong(filmId -> {
+            if (filmId > afterFilmId && size[0] < ids.length) {
+                ids[size[0]++] = filmId;
+            }
+        });
+        Arrays.sort(ids, 0, size[0]);
+        List<Film> page = new ArrayList<>(Math.min(limit, size[0]));
+        for (int i = 0; i < size[0] && page.size() < limit; i++) {
+            Film film = films.get(ids[i]);
+            if (film != null) {
+                page.add(film);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<Film> findReleased(LocalDate from, LocalDate to) {
+        List<Film> found = new ArrayList<>();
+        releaseDates.forEachBetweenWhile(from, to, filmId -> {
+            Film film = films.get(filmId);
+            if (film != null) {
+                found.add(film);
+            }
+            return true;
+        });
+        return found;
+    }
+
+    /**
+     * Фильтры отвечают индексами, а не обходом каталога: у жанра, рейтинга и года выхода свои множества фильмов.
+     * Если совпадений ожидается много, дешевле обойти лидерборд сверху, проверяя фильм по всем множествам:
+     * при независимых фильтрах с долями p₁…pₖ до {@code count} совпадений примерно count / (p₁ · … · pₖ) шагов.
+     * Иначе множества пересекаются: самое маленькое обходится целиком, его фильмы проверяются по остальным,
+     * и в лидерборде ищутся только фильмы пересечения. Шаг обхода лидерборда считается в
+     * {@link #SCAN_STEP_COST} раза дороже проверки. Оба способа дают точный ответ.
+     */
+    @Override
+    public List<Film> findPopular(int count, Integer genreId, Integer mpaId, Integer year) {
+        if (genreId == null && mpaId == null && year == null) {
+            return findPopular(count);
+        }
+        if (count <= 0) {
+            return List.of();
+        }
+        List<LongSet> postings = new ArrayList<>();
+        if (genreId != null) {
+            postings.add(genreIndex.filmsOf(genreId));
+        }
+        if (mpaId != null) {
+            postings.add(mpaIndex.filmsOf(mpaId));
+        }
+        if (year != null) {
+            postings.add(yearIndex.filmsOf(year));
+        }
+        postings.sort(Comparator.comparingInt(LongSet::size));
+        LongSet smallest = postings.get(0);
+        if (smallest.isEmpty()) {
+            return List.of();
         }
+        double total = Math.max(filmCount.sum(), 1);
+        double matchShare = 1;
+        for (LongSet filmIds : postings) {
+            matchShare *= filmIds.size() / total;
+        }
+        List<LongSet> others = postings.subList(1, postings.size());
+        LongPredicate inOthers = filmId -> {
+            for (LongSet filmIds : others) {
+                if (!filmIds.contains(filmId)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+        List<Film> popular = new ArrayList<>();
+        if (count / matchShare * SCAN_STEP_COST < smallest.size()) {
+            popularity.forEachWhile(filmId -> {
+                if (smallest.contains(filmId) && inOthers.test(filmId)) {
+                    Film film = films.get(filmId);
+                    if (film != null) {
+                        popular.add(film);
+                    }
+                }
+                return popular.size() < count;
+            });
+            return popular;
+        }
+        Consumer<LongConsumer> intersection = ids -> smallest.forEachLong(filmId -> {
+            if (inOthers.test(filmId)) {
+                ids.accept(filmId);
+            }
+        });
+        for (long filmId : popularity.top(intersection, filmId -> true, count)) {
+            Film film = films.get(filmId);
+            if (film != null) {
+                popular.add(film);
+            }
+        }
+        return popular;
     }
 
-    private long getNextId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    /**
+     * Ищет фильмы, в названии или описании которых есть все слова запроса, причем последнее слово может быть
+     * началом слова. Выбирается более дешевый из двух способов. Фильмы самого редкого слова запроса (C штук)
+     * ранжируются целиком, если это дешевле обхода лидерборда, на котором {@code limit} совпадений найдутся
+     * в среднем через limit · N / C фильмов, а шаг обхода примерно в {@link #SCAN_STEP_COST} раза дороже:
+     * то есть если C меньше √(limit · N · SCAN_STEP_COST). Иначе совпадения ищутся обходом лидерборда
+     * от самых популярных, ограниченным {@link #SEARCH_SCAN_LIMIT} фильмами, поэтому для сочетания частых
+     * слов выдача может быть неполной. Совпадение проверяется по индексу, а по тексту фильма — только
+     * если началу слова соответствует больше {@link #SEARCH_PREFIX_TOKENS} токенов.
+     */
+    @Override
+    public List<Film> search(String query, int limit) {
+        List<String> terms = List.copyOf(SearchIndex.tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int last = terms.size() - 1;
+        long candidatesLimit = (long) Math.sqrt((double) limit * filmCount.sum() * SCAN_STEP_COST);
+        int rarest = 0;
+        long rarestEstimate = Long.MAX_VALUE;
+        for (int i = 0; i < terms.size(); i++) {
+            long estimate = searchIndex.estimate(terms.get(i), i == last, candidatesLimit);
+            if (estimate < rarestEstimate) {
+                rarest = i;
+                rarestEstimate = estimate;
+            }
+        }
+        if (rarestEstimate == 0) {
+            return List.of();
+        }
+        boolean scan = rarestEstimate > candidatesLimit;
+        List<LongPredicate> checks = new ArrayList<>();
+        for (int i = 0; i < terms.size(); i++) {
+            if (i != rarest || scan) {
+                checks.add(termCheck(terms.get(i), i == last));
+            }
+        }
+        LongPredicate filter = filmId -> {
+            for (LongPredicate check : checks) {
+                if (!check.test(filmId)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+        List<Film> found = new ArrayList<>();
+        if (scan) {
+            int[] scanned = {0};
+            popularity.forEachWhile(filmId -> {
+                if (filter.test(filmId)) {
+                    Film film = films.get(filmId);
+                    if (film != null) {
+                        found.add(film);
+                    }
+                }
+                return found.size() < limit && ++scanned[0] < SEARCH_SCAN_LIMIT;
+            });
+            return found;
+        }
+        String rarestTerm = terms.get(rarest);
+        boolean rarestPrefix = rarest == last;
+        for (long filmId : popularity.top(ids -> searchIndex.forEachMatching(rarestTerm, rarestPrefix, ids),
+                filter, limit)) {
+            Film film = films.get(filmId);
+            if (film != null) {
+                found.add(film);
+            }
+        }
+        return found;
+    }
+
+    private LongPredicate termCheck(String term, boolean prefix) {
+        List<LongSet> postings = searchIndex.postings(term, prefix, SEARCH_PREFIX_TOKENS);
+        if (postings == null) {
+            return filmId -> {
+                Film film = films.get(filmId);
+                return film != null && SearchIndex.matches(film, term);
+            };
+        }
+        return filmId -> {
+            for (LongSet filmIds : postings) {
+                if (filmIds.contains(filmId)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Ищет до {@link #SIMILAR_USERS} пользователей с наибольшим числом общих лайков и ранжирует их фильмы
+     * по сумме пересечений. Каждый обход ограничен {@link #RECOMMENDATION_FAN_OUT} элементами,
+     * а лайки пользователя берутся из обратного индекса, поэтому каталог целиком не просматривается.
+     */
+    @Override
+    public List<Film> findRecommended(long userId, int limit) {
+        LongSet liked = likeIndex.filmsOf(userId);
+        LongCounter overlaps = new LongCounter();
+        int[] scannedFilms = {0};
+        liked.forEachLongWhile(filmId -> {
+            Film film = films.get(filmId);
+            if (film != null) {
+                int[] scannedUsers = {0};
+                film.getLikes().forEachLongWhile(otherUserId -> {
+                    if (otherUserId != userId) {
+                        overlaps.increment(otherUserId);
+                    }
+                    return ++scannedUsers[0] < RECOMMENDATION_FAN_OUT;
+                });
+            }
+            return ++scannedFilms[0] < RECOMMENDATION_FAN_OUT;
+        });
+        LongCounter scores = new LongCounter();
+        for (long similarUserId : overlaps.topKeys(SIMILAR_USERS)) {
+            int overlap = overlaps.get(similarUserId);
+            int[] scanned = {0};
+            likeIndex.filmsOf(similarUserId).forEachLongWhile(filmId -> {
+                if (!liked.contains(filmId)) {
+                    scores.add(filmId, overlap);
+                }
+                return ++scanned[0] < RECOMMENDATION_FAN_OUT;
+            });
+        }
+        List<Film> recommended = new ArrayList<>();
+        for (long filmId : scores.topKeys(limit)) {
+            Film film = films.get(filmId);
+            if (film != null) {
+                recommended.add(film);
+            }
+        }
+        return recommended;
+    }
+
+    @Override
+    public long version() {
+        return versions.current();
+    }
+
+    @Override
+    public long count() {
+        return filmCount.sum();
+    }
+
+    @Override
+    public long countLikes() {
+        return likeCount.sum();
+    }
+
+    private Film getExisting(long filmId) {
+        Film film = films.get(filmId);
+        if (film == null) {
+            throw new NotFoundException("Фильм не найден");
+        }
+        return film;
+    }
+
+    private void removeLikes(Film film, LongSet userIds) {
+        long filmId = film.getId();
+        int before = film.getLikes().size();
+        userIds.forEachLong(userId -> {
+            if (film.getLikes().remove(userId)) {
+                likeIndex.remove(userId, filmId);
+                journal.likeRemoved(filmId, userId);
+            }
+        });
+        if (film.getLikes().size() != before) {
+            likeCount.add(film.getLikes().size() - before);
+            popularity.update(filmId, film.getLikes().size());
+            versions.tick();
+        }
+    }
+
+    private void replaceCategories(long filmId, Film previous, Film film) {
+        genreIndex.replace(filmId, FilmCategories.genreIds(previous), FilmCategories.genreIds(film));
+        mpaIndex.replace(filmId, FilmCategories.mpaIds(previous), FilmCategories.mpaIds(film));
+        yearIndex.replace(filmId, releaseYears(previous), releaseYears(film));
+    }
+
+    private static List<Integer> releaseYears(Film film) {
+        return film == null || film.getReleaseDate() == null ? List.of() : List.of(film.getReleaseDate().getYear());
+    }
+
+    private void initLikes(Film film) {
+        if (film.getLikes() == null) {
+            film.setLikes(new LongSet());
+        }
     }
 }
@@ -1,48 +1,165 @@
 package ru.yandex.practicum.filmorate.storage;
 
-import jakarta.validation.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
+import ru.yandex.practicum.filmorate.util.LongCounter;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 
 @Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory", matchIfMissing = true)
 public class InMemoryUserStorage implements UserStorage {
 
-    private final Map<Long, User> users = new HashMap<>();
-    private final Validator validator;
+    static final int RECOMMENDATION_FAN_OUT = 1_000;
 
-    public InMemoryUserStorage() {
-        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-        this.validator = factory.getValidator();
-    }
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final IdGenerator idGenerator = new IdGenerator();
+    private final StripedLock locks = new StripedLock();
+    private final EntityValidator validator = new EntityValidator();
+    private final LongAdder userCount = new LongAdder();
+    private final LongAdder friendLinkCount = new LongAdder();
+    private final VersionClock versions = new VersionClock();
+    private volatile MutationJournal journal = MutationJournal.NONE;
 
     @Override
     public Collection<User> findAll() {
         return users.values();
     }
 
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public User create(User user) {
-        validateUser(user);
-        user.setId(getNextId());
+        validator.validateUser(user);
+        user.setId(idGenerator.next());
         if (user.getName() == null || user.getName().isEmpty()) {
             user.setName(user.getLogin());
         }
-        users.put(user.getId(), user);
+        user.setFriends(new LongSet());
+        locks.withLock(user.getId(), () -> {
+            users.put(user.getId(), user);
+            userCount.increment();
+            journal.userSaved(user);
+            versions.tick(user.getId());
+        });
         return user;
     }
 
     @Override
     public User update(User user) {
-        if (!users.containsKey(user.getId())) {
+        if (user.getId() == null) {
             throw new NotFoundException("Пользователь не найден");
         }
-        validateUser(user);
-        users.put(user.getId(), user);
-        return user;
+        return locks.withLock(user.getId(), () -> {
+            User previous = getExisting(user.getId());
+            validator.validateUser(user);
+            user.setFriends(previous.getFriends());
+            users.put(user.getId(), user);
+            journal.userSaved(user);
+            versions.tick(user.getId());
+            return user;
+        });
+    }
+
+    /**
+     * Собирает новый объект пользователя из текущего и патча и заменяет им текущий, поэтому читатели
+     * без блокировки видят либо старую, либо новую версию целиком. Друзья переходят в новый объект без изменений.
+     */
+    @Override
+    public User patch(UserPatch patch) {
+        if (patch.getId() == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        validator.validateUserPatch(patch);
+        return locks.withLock(patch.getId(), () -> {
+            User current = getExisting(patch.getId());
+            String login = patch.getLogin() != null ? patch.getLogin() : current.getLogin();
+            String name = patch.getName() == null ? current.getName() : patch.getName().isEmpty() ? login : patch.getName();
+            User patched = new User(current.getId(),
+                    patch.getEmail() != null ? patch.getEmail() : current.getEmail(),
+                    login,
+                    name,
+                    patch.getBirthday() != null ? patch.getBirthday() : current.getBirthday(),
+                    current.getFriends());
+            users.put(patched.getId(), patched);
+            journal.userSaved(patched);
+            versions.tick(patched.getId());
+            return patched;
+        });
+    }
+
+    /**
+     * Удаляет пользователя и его дружбы. Сначала пользователь пропадает из хранилища под своей блокировкой,
+     * после чего новые дружбы с ним невозможны, затем он убирается из множеств своих друзей. Дружба
+     * взаимная, поэтому обходятся только его друзья, а не все пользователи.
+     */
+    @Override
+    public void delete(long id) {
+        User user = locks.withLock(id, () -> {
+            User removed = getExisting(id);
+            users.remove(id);
+            userCount.decrement();
+            friendLinkCount.add(-removed.getFriends().size());
+            journal.userRemoved(id);
+            versions.tick(id);
+            return removed;
+        });
+        user.getFriends().forEachLong(friendId -> locks.withLocks(id, friendId, () -> {
+            User friend = users.get(friendId);
+            if (friend != null && friend.getFriends().remove(id)) {
+                friendLinkCount.decrement();
+            }
+            versions.tick(friendId);
+        }));
+    }
+
+    /**
+     * Кладет пользователя с уже назначенным id без проверок и без записи в журнал.
+     * Используется при восстановлении состояния из снимка и журнала.
+     */
+    public void restore(User user) {
+        initFriends(user);
+        idGenerator.advanceTo(user.getId());
+        locks.withLock(user.getId(), () -> {
+            User previous = users.put(user.getId(), user);
+            if (previous == null) {
+                userCount.increment();
+            }
+            friendLinkCount.add(user.getFriends().size() - (previous == null ? 0 : previous.getFriends().size()));
+            versions.tick(user.getId());
+        });
+    }
+
+    /**
+     * Последний выданный id. Пишется в снимок, чтобы после восстановления не выдать повторно id удаленных пользователей.
+     */
+    public long lastId() {
+        return idGenerator.current();
+    }
+
+    /**
+     * Сдвигает счетчик так, чтобы новые id были больше {@code id}. Используется при восстановлении.
+     */
+    public void advanceIdsTo(long id) {
+        idGenerator.advanceTo(id);
+    }
+
+    public void setJournal(MutationJournal journal) {
+        this.journal = journal;
     }
 
     @Override
@@ -56,34 +173,130 @@ public class InMemoryUserStorage implements UserStorage {
         if (user == null) {
             throw new NotFoundException("Пользователь не найден");
         }
-        Set<User> friends = new HashSet<>();
-        for (Long friendId : user.getFriends()) {
+        List<User> friends = new ArrayList<>(user.getFriends().size());
+        user.getFriends().forEachLong(friendId -> {
             User friend = users.get(friendId);
             if (friend != null) {
                 friends.add(friend);
             }
-        }
+        });
+        friends.sort(Comparator.comparingLong(User::getId));
         return friends;
     }
 
+    @Override
+    public List<User> findCommonFriends(long id, long otherId) {
+        User user = getExisting(id);
+        User otherUser = getExisting(otherId);
+        List<User> commonFriends = new ArrayList<>();
+        user.getFriends().forEachCommon(otherUser.getFriends(), friendId -> {
+            User friend = users.get(friendId);
+            if (friend != null) {
+                commonFriends.add(friend);
+            }
+        });
+        return commonFriends;
+    }
 
-    private void validateUser(User user) {
-        Set<ConstraintViolation<User>> violations = validator.validate(user);
-        if (!violations.isEmpty()) {
-            StringBuilder sb = new StringBuilder();
-            for (ConstraintViolation<User> violation : violations) {
-                sb.append(violation.getMessage()).append("; ");
+    /**
+     * Обходит не больше {@link #RECOMMENDATION_FAN_OUT} друзей пользователя и столько же друзей у каждого из них,
+     * поэтому стоимость запроса ограничена и для пользователей с тысячами друзей.
+     */
+    @Override
+    public List<User> findRecommendations(long id, int limit) {
+        LongSet friends = getExisting(id).getFriends();
+        LongCounter mutualFriends = new LongCounter();
+        int[] scannedFriends = {0};
+        friends.forEachLongWhile(friendId -> {
+            User friend = users.get(friendId);
+            if (friend != null) {
+                int[] scannedCandidates = {0};
+                friend.getFriends().forEachLongWhile(candidateId -> {
+                    if (candidateId != id && !friends.contains(candidateId)) {
+                        mutualFriends.increment(candidateId);
+                    }
+                    return ++scannedCandidates[0] < RECOMMENDATION_FAN_OUT;
+                });
+            }
+            return ++scannedFriends[0] < RECOMMENDATION_FAN_OUT;
+        });
+        List<User> recommendations = new ArrayList<>();
+        for (long candidateId : mutualFriends.topKeys(limit)) {
+            User candidate = users.get(candidateId);
+            if (candidate != null) {
+                recommendations.add(candidate);
+            }
+        }
+        return recommendations;
+    }
+
+    @Override
+    public void addFriend(long userId, long friendId) {
+        locks.withLocks(userId, friendId, () -> {
+            User user = getExisting(userId);
+            User friend = getExisting(friendId);
+            if (user.getFriends().add(friendId)) {
+                friendLinkCount.increment();
             }
-            throw new ConstraintViolationException(sb.toString(), violations);
+            if (friend.getFriends().add(userId)) {
+                friendLinkCount.increment();
+            }
+            journal.friendAdded(userId, friendId);
+            versions.tick(userId, friendId);
+        });
+    }
+
+    @Override
+    public void removeFriend(long userId, long friendId) {
+        locks.withLocks(userId, friendId, () -> {
+            User user = getExisting(userId);
+            User friend = getExisting(friendId);
+            if (user.getFriends().remove(friendId)) {
+                friendLinkCount.decrement();
+            }
+            if (friend.getFriends().remove(userId)) {
+                friendLinkCount.decrement();
+            }
+            journal.friendRemoved(userId, friendId);
+            versions.tick(userId, friendId);
+        });
+    }
+
+    /**
+     * Отметки сущностей берутся из общей версии, поэтому максимум по пользователю и его друзьям растет
+     * при любом изменении, влияющем на список: удаление друга обновляет отметку самого пользователя.
+     */
+    @Override
+    public long friendsVersion(long userId) {
+        User user = users.get(userId);
+        long[] version = {versions.stampOf(userId)};
+        if (user != null) {
+            user.getFriends().forEachLong(friendId -> version[0] = Math.max(version[0], versions.stampOf(friendId)));
         }
+        return version[0];
+    }
+
+    @Override
+    public long count() {
+        return userCount.sum();
+    }
+
+    @Override
+    public long countFriendLinks() {
+        return friendLinkCount.sum();
     }
 
-    private long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    private User getExisting(long userId) {
+        User user = users.get(userId);
+        if (user == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        return user;
+    }
+
+    private void initFriends(User user) {
+        if (user.getFriends() == null) {
+            user.setFriends(new LongSet());
+        }
     }
 }
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+
+/**
+ * Справочники из таблиц genres и mpa. Таблицы читаются один раз при первом обращении,
+ * дальше справочники отдаются из памяти: жанры и рейтинги фильмов разрешаются без запросов к БД.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc")
+public class JdbcDictionaryStorage implements DictionaryStorage {
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private volatile Dictionaries dictionaries;
+
+    @Autowired
+    public JdbcDictionaryStorage(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public List<Genre> findGenres() {
+        return dictionaries().genres();
+    }
+
+    @Override
+    public Genre findGenre(int id) {
+        return dictionaries().genre(id);
+    }
+
+    @Override
+    public List<Mpa> findMpaRatings() {
+        return dictionaries().mpaRatings();
+    }
+
+    @Override
+    public Mpa findMpa(int id) {
+        return dictionaries().mpa(id);
+    }
+
+    /**
+     * Одновременная первая загрузка может прочитать таблицы дважды, результат от этого не меняется.
+     */
+    private Dictionaries dictionaries() {
+        Dictionaries loaded = dictionaries;
+        if (loaded == null) {
+            loaded = new Dictionaries(
+                    jdbc.query("SELECT genre_id, name FROM genres ORDER BY genre_id",
+                            (rs, rowNum) -> new Genre(rs.getInt("genre_id"), rs.getString("name"))),
+                    jdbc.query("SELECT mpa_id, name FROM mpa ORDER BY mpa_id",
+                            (rs, rowNum) -> new Mpa(rs.getInt("mpa_id"), rs.getString("name"))));
+            dictionaries = loaded;
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,471 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Хранилище фильмов в реляционной БД.
+ * Число лайков денормализовано в films.like_count и поддерживается вместе с таблицей likes,
+ * поэтому популярные фильмы читаются по индексу films_popularity_idx без сортировки всего каталога.
+ * Лайки меняются только через методы лайков, обновление фильма их не затрагивает.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc")
+public class JdbcFilmStorage implements FilmStorage {
+
+    private static final int SIMILAR_USERS = 50;
+    private static final String SELECT_FILMS = "SELECT film_id, name, description, release_date, duration, mpa_id FROM films";
+    private static final String INSERT_LIKE = "INSERT INTO likes (film_id, user_id) "
+            + "SELECT :filmId, :userId WHERE NOT EXISTS "
+            + "(SELECT 1 FROM likes WHERE film_id = :filmId AND user_id = :userId)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final DictionaryStorage dictionaries;
+    private final EntityValidator validator = new EntityValidator();
+    private final RowMapper<Film> filmMapper = this::mapFilm;
+    private final VersionClock versions = new VersionClock();
+
+    @Autowired
+    public JdbcFilmStorage(NamedParameterJdbcTemplate jdbc, DictionaryStorage dictionaries) {
+        this.jdbc = jdbc;
+        this.dictionaries = dictionaries;
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        List<Film> films = jdbc.query(SELECT_FILMS + " ORDER BY film_id", filmMapper);
+        Map<Long, LongSet> likes = new HashMap<>();
+        jdbc.query("SELECT film_id, user_id FROM likes", rs -> {
+            likes.computeIfAbsent(rs.getLong("film_id"), id -> new LongSet()).add(rs.getLong("user_id"));
+        });
+        films.forEach(film -> film.setLikes(likes.getOrDefault(film.getId(), new LongSet())));
+        attachGenres(films, "SELECT film_id, genre_id FROM film_genres ORDER BY genre_id", new MapSqlParameterSource());
+        return films;
+    }
+
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return withLikesAndGenres(jdbc.query(SELECT_FILMS + " WHERE film_id > :afterId ORDER BY film_id LIMIT :limit",
+                new MapSqlParameterSource("afterId", afterId).addValue("limit", limit), filmMapper));
+    }
+
+    @Override
+    @Transactional
+    public Film create(Film film) {
+        validator.validateFilm(film);
+        FilmCategories.resolve(film, dictionaries);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO films (name, description, release_date, duration, mpa_id) "
+                        + "VALUES (:name, :description, :releaseDate, :duration, :mpaId)",
+                filmParams(film), keyHolder, new String[]{"film_id"});
+        film.setId(keyHolder.getKey().longValue());
+        film.setLikes(new LongSet());
+        insertGenres(film.getId(), film.getGenres());
+        versions.tickAfterCommit();
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public Film update(Film film) {
+        if (film.getId() == null) {
+            throw new NotFoundException("Фильм не найден");
+        }
+        validator.validateFilm(film);
+        FilmCategories.resolve(film, dictionaries);
+        int updated = jdbc.update("UPDATE films SET name = :name, description = :description, "
+                        + "release_date = :releaseDate, duration = :duration, mpa_id = :mpaId WHERE film_id = :filmId",
+                filmParams(film).addValue("filmId", film.getId()));
+        if (updated == 0) {
+            throw new NotFoundException("Фильм не найден");
+        }
+        replaceGenres(film.getId(), film.getGenres());
+        film.setLikes(loadLikes(film.getId()));
+        versions.tickAfterCommit();
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public Film patch(FilmPatch patch) {
+        if (patch.getId() == null) {
+            throw new NotFoundException("Фильм не найден");
+        }
+        validator.validateFilmPatch(patch);
+        Mpa mpa = FilmCategories.resolveMpa(patch.getMpa(), dictionaries);
+        List<Genre> genres = patch.getGenres() == null ? null
+                : FilmCategories.resolveGenres(patch.getGenres(), dictionaries);
+        int updated = jdbc.update("UPDATE films SET name = COALESCE(:name, name), "
+                        + "description = COALESCE(:description, description), "
+                        + "release_date = COALESCE(:releaseDate, release_date), "
+                        + "duration = COALESCE(:duration, duration), "
+                        + "mpa_id = COALESCE(:mpaId, mpa_id) WHERE film_id = :filmId",
+                new MapSqlParameterSource("filmId", patch.getId())
+                        .addValue("name", patch.getName())
+                        .addValue("description", patch.getDescription())
+                        .addValue("releaseDate", patch.getReleaseDate() == null ? null : Date.valueOf(patch.getReleaseDate()))
+                        .addValue("duration", patch.getDuration())
+                        .addValue("mpaId", mpa == null ? null : mpa.getId()));
+        if (updated == 0) {
+            throw new NotFoundException("Фильм не найден");
+        }
+        if (genres != null) {
+            replaceGenres(patch.getId(), genres);
+        }
+        versions.tickAfterCommit();
+        return findById(patch.getId());
+    }
+
+    @Override
+    public Film findById(long id) {
+        List<Film> films = jdbc.query(SELECT_FILMS + " WHERE film_id = :filmId",
+                new MapSqlParameterSource("filmId", id), filmMapper);
+        if (films.isEmpty()) {
+            return null;
+        }
+        Film film = films.get(0);
+        film.setLikes(loadLikes(id));
+        attachGenres(films, "SELECT film_id, genre_id FROM film_genres WHERE film_id = :filmId ORDER BY genre_id",
+                new MapSqlParameterSource("filmId", id));
+        return film;
+    }
+
+    /**
+     * Лайки и жанры фильма удаляет каскад БД по первичным ключам likes и film_genres.
+     */
+    @Override
+    @Transactional
+    public void delete(long id) {
+        if (jdbc.update("DELETE FROM films WHERE film_id = :filmId", new MapSqlParameterSource("filmId", id)) == 0) {
+            throw new NotFoundException("Фильм не найден");
+        }
+        versions.tickAfterCommit();
+    }
+
+    @Override
+    @Transactional
+    public void addLike(long filmId, long userId) {
+        requireExists(filmId);
+        try {
+            changeLikeCount(filmId, jdbc.update(INSERT_LIKE, likeParams(filmId, userId)));
+        } catch (DuplicateKeyException e) {
+            // лайк уже добавлен параллельным запросом
+        }
+    }
+
+    @Override
+    @Transactional
+    public void removeLike(long filmId, long userId) {
+        requireExists(filmId);
+        int deleted = jdbc.update("DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId",
+                likeParams(filmId, userId));
+        changeLikeCount(filmId, -deleted);
+    }
+
+    @Override
+    @Transactional
+    public void addLikes(long filmId, LongSet userIds) {
+        requireExists(filmId);
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[userIds.size()];
+        int[] position = {0};
+        userIds.forEachLong(userId -> batch[position[0]++] = likeParams(filmId, userId));
+        int inserted = 0;
+        for (int count : jdbc.batchUpdate(INSERT_LIKE, batch)) {
+            inserted += Math.max(count, 0);
+        }
+        changeLikeCount(filmId, inserted);
+    }
+
+    @Override
+    @Transactional
+    public void removeLikes(long filmId, LongSet userIds) {
+        requireExists(filmId);
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[userIds.size()];
+        int[] position = {0};
+        userIds.forEachLong(userId -> batch[position[0]++] = likeParams(filmId, userId));
+        int deleted = 0;
+        for (int count : jdbc.batchUpdate("DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId", batch)) {
+            deleted += Math.max(count, 0);
+        }
+        changeLikeCount(filmId, -deleted);
+    }
+
+    /**
+     * Лайки удаленного пользователя уже снял каскад БД вместе со счетчиками (см. {@link JdbcUserStorage#delete}),
+     * но рейтинг фильмов изменился, поэтому версия растет, даже если удалять здесь нечего.
+     */
+    @Override
+    @Transactional
+    public void removeUserLikes(LongSet userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("userIds", userIds);
+        jdbc.update("UPDATE films SET like_count = like_count - (SELECT COUNT(*) FROM likes "
+                + "WHERE likes.film_id = films.film_id AND user_id IN (:userIds)) "
+                + "WHERE film_id IN (SELECT film_id FROM likes WHERE user_id IN (:userIds))", params);
+        jdbc.update("DELETE FROM likes WHERE user_id IN (:userIds)", params);
+        versions.tickAfterCommit();
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        return withLikesAndGenres(jdbc.query(SELECT_FILMS + " ORDER BY like_count DESC, film_id LIMIT :count",
+                new MapSqlParameterSource("count", count), filmMapper));
+    }
+
+    @Override
+    public List<Film> findLikedBy(long userId, long afterFilmId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return withLikesAndGenres(jdbc.query(SELECT_FILMS + " WHERE film_id IN (SELECT film_id FROM likes "
+                        + "WHERE user_id = :userId AND film_id > :afterId) ORDER BY film_id LIMIT :limit",
+                new MapSqlParameterSource("userId", userId)
+                        .addValue("afterId", afterFilmId)
+                        .addValue("limit", limit), filmMapper));
+    }
+
+    /**
+     * Лайки и жанры читаются соединением с тем же условием, а не списком id, который для длинного периода
+     * был бы огромным.
+     */
+    @Override
+    public List<Film> findReleased(LocalDate from, LocalDate to) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder where = new StringBuilder();
+        if (from != null) {
+            where.append(" WHERE release_date >= :from");
+            params.addValue("from", Date.valueOf(from));
+        }
+        if (to != null) {
+            where.append(from == null ? " WHERE " : " AND ").append("release_date <= :to");
+            params.addValue("to", Date.valueOf(to));
+        }
+        List<Film> films = jdbc.query(SELECT_FILMS + where + " ORDER BY release_date, film_id", params, filmMapper);
+        Map<Long, LongSet> likes = new HashMap<>();
+        jdbc.query("SELECT l.film_id, l.user_id FROM likes l JOIN films ON films.film_id = l.film_id" + where, params,
+                rs -> {
+                    likes.computeIfAbsent(rs.getLong("film_id"), id -> new LongSet()).add(rs.getLong("user_id"));
+                });
+        films.forEach(film -> film.setLikes(likes.getOrDefault(film.getId(), new LongSet())));
+        attachGenres(films, "SELECT g.film_id, g.genre_id FROM film_genres g JOIN films ON films.film_id = g.film_id"
+                + where + " ORDER BY g.genre_id", params);
+        return films;
+    }
+
+    /**
+     * Жанр проверяется по индексу film_genres_genre_idx, рейтинг и год — по столбцам фильма.
+     */
+    @Override
+    public List<Film> findPopular(int count, Integer genreId, Integer mpaId, Integer year) {
+        if (count <= 0) {
+            return List.of();
+        }
+        List<String> conditions = new ArrayList<>();
+        MapSqlParameterSource params = new MapSqlParameterSource("count", count);
+        if (genreId != null) {
+            conditions.add("EXISTS (SELECT 1 FROM film_genres g WHERE g.film_id = films.film_id AND g.genre_id = :genreId)");
+            params.addValue("genreId", genreId);
+        }
+        if (mpaId != null) {
+            conditions.add("mpa_id = :mpaId");
+            params.addValue("mpaId", mpaId);
+        }
+        if (year != null) {
+            LocalDate from = LocalDate.ofYearDay(year, 1);
+            conditions.add("release_date >= :from AND release_date < :to");
+            params.addValue("from", Date.valueOf(from)).addValue("to", Date.valueOf(from.plusYears(1)));
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return withLikesAndGenres(jdbc.query(SELECT_FILMS + where + " ORDER BY like_count DESC, film_id LIMIT :count",
+                params, filmMapper));
+    }
+
+    /**
+     * Каждое слово запроса, а не только последнее, ищется как начало слова: в начале названия или описания
+     * либо после пробела, поэтому слово, стоящее сразу после знака препинания, не находится.
+     * Запрос просматривает таблицу фильмов целиком.
+     */
+    @Override
+    public List<Film> search(String query, int limit) {
+        Set<String> prefixes = SearchIndex.tokenize(query);
+        if (prefixes.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        StringBuilder where = new StringBuilder();
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        int index = 0;
+        for (String prefix : prefixes) {
+            where.append(index == 0 ? " WHERE " : " AND ")
+                    .append("LOWER(CONCAT(' ', name, ' ', description)) LIKE :prefix").append(index);
+            params.addValue("prefix" + index, "% " + prefix + "%");
+            index++;
+        }
+        return withLikesAndGenres(jdbc.query(SELECT_FILMS + where + " ORDER BY like_count DESC, film_id LIMIT :limit",
+                params, filmMapper));
+    }
+
+    @Override
+    public List<Film> findRecommended(long userId, int limit) {
+        List<Long> ids = jdbc.queryForList("WITH similar_users AS ("
+                        + "SELECT l2.user_id, COUNT(*) AS overlap FROM likes l1 JOIN likes l2 ON l1.film_id = l2.film_id "
+                        + "WHERE l1.user_id = :userId AND l2.user_id <> :userId "
+                        + "GROUP BY l2.user_id ORDER BY overlap DESC, l2.user_id LIMIT :similarUsers) "
+                        + "SELECT l.film_id FROM likes l JOIN similar_users s ON l.user_id = s.user_id "
+                        + "WHERE l.film_id NOT IN (SELECT film_id FROM likes WHERE user_id = :userId) "
+                        + "GROUP BY l.film_id ORDER BY SUM(s.overlap) DESC, l.film_id LIMIT :limit",
+                new MapSqlParameterSource("userId", userId)
+                        .addValue("similarUsers", SIMILAR_USERS)
+                        .addValue("limit", limit), Long.class);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Film> films = withLikesAndGenres(jdbc.query(SELECT_FILMS + " WHERE film_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), filmMapper)).stream()
+                .collect(Collectors.toMap(Film::getId, film -> film));
+        return ids.stream().map(films::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Версия ведется в памяти процесса и учитывает только изменения, прошедшие через это хранилище.
+     */
+    @Override
+    public long version() {
+        return versions.current();
+    }
+
+    @Override
+    public long count() {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM films", Long.class);
+    }
+
+    @Override
+    public long countLikes() {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM likes", Long.class);
+    }
+
+    private void requireExists(long filmId) {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM films WHERE film_id = :filmId",
+                new MapSqlParameterSource("filmId", filmId), Integer.class);
+        if (count == null || count == 0) {
+            throw new NotFoundException("Фильм не найден");
+        }
+    }
+
+    private void changeLikeCount(long filmId, int delta) {
+        if (delta != 0) {
+            jdbc.update("UPDATE films SET like_count = like_count + :delta WHERE film_id = :filmId",
+                    new MapSqlParameterSource("delta", delta).addValue("filmId", filmId));
+            versions.tickAfterCommit();
+        }
+    }
+
+    private LongSet loadLikes(long filmId) {
+        LongSet likes = new LongSet();
+        jdbc.query("SELECT user_id FROM likes WHERE film_id = :filmId",
+                new MapSqlParameterSource("filmId", filmId), rs -> {
+                    likes.add(rs.getLong("user_id"));
+                });
+        return likes;
+    }
+
+    private List<Film> withLikesAndGenres(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Long, LongSet> likes = new HashMap<>();
+        List<Long> ids = films.stream().map(Film::getId).collect(Collectors.toList());
+        jdbc.query("SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), rs -> {
+                    likes.computeIfAbsent(rs.getLong("film_id"), id -> new LongSet()).add(rs.getLong("user_id"));
+                });
+        films.forEach(film -> film.setLikes(likes.getOrDefault(film.getId(), new LongSet())));
+        attachGenres(films, "SELECT film_id, genre_id FROM film_genres WHERE film_id IN (:ids) ORDER BY genre_id",
+                new MapSqlParameterSource("ids", ids));
+        return films;
+    }
+
+    /**
+     * Раздает фильмам жанры из запроса, возвращающего пары film_id, genre_id по возрастанию genre_id.
+     * Названия жанров берутся из справочника, а не соединением с таблицей genres.
+     */
+    private void attachGenres(List<Film> films, String sql, MapSqlParameterSource params) {
+        Map<Long, List<Genre>> genres = new HashMap<>();
+        jdbc.query(sql, params, rs -> {
+            genres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>())
+                    .add(dictionaries.findGenre(rs.getInt("genre_id")));
+        });
+        films.forEach(film -> film.setGenres(genres.getOrDefault(film.getId(), new ArrayList<>())));
+    }
+
+    private void replaceGenres(long filmId, List<Genre> genres) {
+        jdbc.update("DELETE FROM film_genres WHERE film_id = :filmId", new MapSqlParameterSource("filmId", filmId));
+        insertGenres(filmId, genres);
+    }
+
+    private void insertGenres(long filmId, List<Genre> genres) {
+        if (genres.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource[] batch = genres.stream()
+                .map(genre -> new MapSqlParameterSource("filmId", filmId).addValue("genreId", genre.getId()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (:filmId, :genreId)", batch);
+    }
+
+    private MapSqlParameterSource likeParams(long filmId, long userId) {
+        return new MapSqlParameterSource("filmId", filmId).addValue("userId", userId);
+    }
+
+    private MapSqlParameterSource filmParams(Film film) {
+        return new MapSqlParameterSource()
+                .addValue("name", film.getName())
+                .addValue("description", film.getDescription())
+                .addValue("releaseDate", Date.valueOf(film.getReleaseDate()))
+                .addValue("duration", film.getDuration())
+                .addValue("mpaId", film.getMpa() == null ? null : film.getMpa().getId());
+    }
+
+    private Film mapFilm(ResultSet rs, int rowNum) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getLong("film_id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        film.setReleaseDate(rs.getDate("release_date").toLocalDate());
+        film.setDuration(rs.getInt("duration"));
+        int mpaId = rs.getInt("mpa_id");
+        film.setMpa(rs.wasNull() ? null : dictionaries.findMpa(mpaId));
+        return film;
+    }
+}
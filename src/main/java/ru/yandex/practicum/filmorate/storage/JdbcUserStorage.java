@@ -0,0 +1,294 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Хранилище пользователей в реляционной БД.
+ * Дружба хранится в таблице friendship в обе стороны, поэтому общие друзья считаются одним JOIN по индексу.
+ * Связи меняются только через {@link #addFriend} и {@link #removeFriend}, обновление профиля их не затрагивает.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "jdbc")
+public class JdbcUserStorage implements UserStorage {
+
+    private static final String SELECT_USERS = "SELECT user_id, email, login, name, birthday FROM users";
+    private static final String INSERT_FRIENDSHIP = "INSERT INTO friendship (user_id, friend_id) "
+            + "SELECT :userId, :friendId WHERE NOT EXISTS "
+            + "(SELECT 1 FROM friendship WHERE user_id = :userId AND friend_id = :friendId)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final EntityValidator validator = new EntityValidator();
+    private final RowMapper<User> userMapper = this::mapUser;
+    private final VersionClock versions = new VersionClock();
+
+    @Autowired
+    public JdbcUserStorage(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        List<User> users = jdbc.query(SELECT_USERS + " ORDER BY user_id", userMapper);
+        Map<Long, LongSet> friends = new HashMap<>();
+        jdbc.query("SELECT user_id, friend_id FROM friendship", rs -> {
+            friends.computeIfAbsent(rs.getLong("user_id"), id -> new LongSet()).add(rs.getLong("friend_id"));
+        });
+        users.forEach(user -> user.setFriends(friends.getOrDefault(user.getId(), new LongSet())));
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        List<User> users = jdbc.query(SELECT_USERS + " WHERE user_id > :afterId ORDER BY user_id LIMIT :limit",
+                new MapSqlParameterSource("afterId", afterId).addValue("limit", limit), userMapper);
+        return withFriends(users);
+    }
+
+    @Override
+    @Transactional
+    public User create(User user) {
+        validator.validateUser(user);
+        if (user.getName() == null || user.getName().isEmpty()) {
+            user.setName(user.getLogin());
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO users (email, login, name, birthday) VALUES (:email, :login, :name, :birthday)",
+                userParams(user), keyHolder, new String[]{"user_id"});
+        user.setId(keyHolder.getKey().longValue());
+        user.setFriends(new LongSet());
+        versions.tickAfterCommit(user.getId());
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public User update(User user) {
+        if (user.getId() == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        validator.validateUser(user);
+        int updated = jdbc.update("UPDATE users SET email = :email, login = :login, name = :name, birthday = :birthday "
+                + "WHERE user_id = :userId", userParams(user).addValue("userId", user.getId()));
+        if (updated == 0) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        user.setFriends(loadFriends(user.getId()));
+        versions.tickAfterCommit(user.getId());
+        return user;
+    }
+
+    /**
+     * Пустое имя заменяется логином — новым, если он тоже меняется, иначе текущим.
+     */
+    @Override
+    @Transactional
+    public User patch(UserPatch patch) {
+        if (patch.getId() == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        validator.validateUserPatch(patch);
+        boolean blankName = patch.getName() != null && patch.getName().isEmpty();
+        int updated = jdbc.update("UPDATE users SET email = COALESCE(:email, email), "
+                        + "login = COALESCE(:login, login), "
+                        + "name = " + (blankName ? "COALESCE(:login, login)" : "COALESCE(:name, name)") + ", "
+                        + "birthday = COALESCE(:birthday, birthday) WHERE user_id = :userId",
+                new MapSqlParameterSource("userId", patch.getId())
+                        .addValue("email", patch.getEmail())
+                        .addValue("login", patch.getLogin())
+                        .addValue("name", patch.getName())
+                        .addValue("birthday", patch.getBirthday() == null ? null : Date.valueOf(patch.getBirthday())));
+        if (updated == 0) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        versions.tickAfterCommit(patch.getId());
+        return findById(patch.getId());
+    }
+
+    @Override
+    public User findById(long id) {
+        List<User> users = jdbc.query(SELECT_USERS + " WHERE user_id = :userId",
+                new MapSqlParameterSource("userId", id), userMapper);
+        if (users.isEmpty()) {
+            return null;
+        }
+        User user = users.get(0);
+        user.setFriends(loadFriends(id));
+        return user;
+    }
+
+    /**
+     * Дружбы и лайки пользователя удаляет каскад БД по индексам friendship_friend_idx и likes_user_idx.
+     * Счетчики лайков его фильмов каскад не меняет, поэтому они уменьшаются здесь же, в той же транзакции.
+     */
+    @Override
+    @Transactional
+    public void delete(long id) {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", id);
+        LongSet friends = loadFriends(id);
+        jdbc.update("UPDATE films SET like_count = like_count - 1 "
+                + "WHERE film_id IN (SELECT film_id FROM likes WHERE user_id = :userId)", params);
+        if (jdbc.update("DELETE FROM users WHERE user_id = :userId", params) == 0) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        long[] stamped = Arrays.copyOf(friends.toLongArray(), friends.size() + 1);
+        stamped[friends.size()] = id;
+        versions.tickAfterCommit(stamped);
+    }
+
+    @Override
+    public Collection<User> findFriendsById(long id) {
+        requireExists(id);
+        return withFriends(jdbc.query(SELECT_USERS + " WHERE user_id IN "
+                        + "(SELECT friend_id FROM friendship WHERE user_id = :userId) ORDER BY user_id",
+                new MapSqlParameterSource("userId", id), userMapper));
+    }
+
+    @Override
+    public List<User> findCommonFriends(long id, long otherId) {
+        requireExists(id);
+        requireExists(otherId);
+        return withFriends(jdbc.query(SELECT_USERS + " WHERE user_id IN ("
+                        + "SELECT f1.friend_id FROM friendship f1 JOIN friendship f2 ON f1.friend_id = f2.friend_id "
+                        + "WHERE f1.user_id = :userId AND f2.user_id = :otherId) ORDER BY user_id",
+                new MapSqlParameterSource("userId", id).addValue("otherId", otherId), userMapper));
+    }
+
+    /**
+     * Кандидаты и их данные читаются двумя запросами; пользователь, удаленный между ними, пропускается.
+     */
+    @Override
+    public List<User> findRecommendations(long id, int limit) {
+        requireExists(id);
+        List<Long> ids = jdbc.queryForList("SELECT f2.friend_id FROM friendship f1 "
+                        + "JOIN friendship f2 ON f1.friend_id = f2.user_id "
+                        + "WHERE f1.user_id = :userId AND f2.friend_id <> :userId AND f2.friend_id NOT IN "
+                        + "(SELECT friend_id FROM friendship WHERE user_id = :userId) "
+                        + "GROUP BY f2.friend_id ORDER BY COUNT(*) DESC, f2.friend_id LIMIT :limit",
+                new MapSqlParameterSource("userId", id).addValue("limit", limit), Long.class);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> users = withFriends(jdbc.query(SELECT_USERS + " WHERE user_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), userMapper)).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        return ids.stream().map(users::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public void addFriend(long userId, long friendId) {
+        requireExists(userId);
+        requireExists(friendId);
+        jdbc.batchUpdate(INSERT_FRIENDSHIP, new MapSqlParameterSource[]{
+                new MapSqlParameterSource("userId", userId).addValue("friendId", friendId),
+                new MapSqlParameterSource("userId", friendId).addValue("friendId", userId)
+        });
+        versions.tickAfterCommit(userId, friendId);
+    }
+
+    @Override
+    @Transactional
+    public void removeFriend(long userId, long friendId) {
+        requireExists(userId);
+        requireExists(friendId);
+        jdbc.update("DELETE FROM friendship WHERE (user_id = :userId AND friend_id = :friendId) "
+                        + "OR (user_id = :friendId AND friend_id = :userId)",
+                new MapSqlParameterSource("userId", userId).addValue("friendId", friendId));
+        versions.tickAfterCommit(userId, friendId);
+    }
+
+    /**
+     * Версии ведутся в памяти процесса и учитывают только изменения, прошедшие через это хранилище.
+     */
+    @Override
+    public long friendsVersion(long userId) {
+        long[] version = {versions.stampOf(userId)};
+        jdbc.query("SELECT friend_id FROM friendship WHERE user_id = :userId",
+                new MapSqlParameterSource("userId", userId), rs -> {
+                    version[0] = Math.max(version[0], versions.stampOf(rs.getLong("friend_id")));
+                });
+        return version[0];
+    }
+
+    @Override
+    public long count() {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+
+    @Override
+    public long countFriendLinks() {
+        return jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM friendship", Long.class);
+    }
+
+    private void requireExists(long userId) {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE user_id = :userId",
+                new MapSqlParameterSource("userId", userId), Integer.class);
+        if (count == null || count == 0) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+    }
+
+    private LongSet loadFriends(long userId) {
+        LongSet friends = new LongSet();
+        jdbc.query("SELECT friend_id FROM friendship WHERE user_id = :userId",
+                new MapSqlParameterSource("userId", userId), rs -> {
+                    friends.add(rs.getLong("friend_id"));
+                });
+        return friends;
+    }
+
+    private List<User> withFriends(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        Map<Long, LongSet> friends = new HashMap<>();
+        List<Long> ids = users.stream().map(User::getId).collect(Collectors.toList());
+        jdbc.query("SELECT user_id, friend_id FROM friendship WHERE user_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), rs -> {
+                    friends.computeIfAbsent(rs.getLong("user_id"), id -> new LongSet()).add(rs.getLong("friend_id"));
+                });
+        users.forEach(user -> user.setFriends(friends.getOrDefault(user.getId(), new LongSet())));
+        return users;
+    }
+
+    private MapSqlParameterSource userParams(User user) {
+        return new MapSqlParameterSource()
+                .addValue("email", user.getEmail())
+                .addValue("login", user.getLogin())
+                .addValue("name", user.getName())
+                .addValue("birthday", Date.valueOf(user.getBirthday()));
+    }
+
+    private User mapUser(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("user_id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        user.setBirthday(rs.getDate("birthday").toLocalDate());
+        return user;
+    }
+}
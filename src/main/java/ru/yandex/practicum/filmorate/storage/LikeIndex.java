@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Обратный индекс лайков: пользователь → фильмы, которые он лайкнул.
+ * Вызывающий код меняет индекс под блокировкой фильма, а индекс берет блокировку пользователя.
+ * Полосы блокировок пользователей свои, поэтому порядок всегда «фильм → пользователь» и взаимоблокировок нет.
+ * Чтение не блокируется.
+ */
+class LikeIndex {
+
+    private static final LongSet NO_FILMS = new LongSet();
+
+    private final Map<Long, LongSet> filmsByUser = new ConcurrentHashMap<>();
+    private final StripedLock locks = new StripedLock();
+
+    void add(long userId, long filmId) {
+        locks.withLock(userId, () -> {
+            filmsByUser.computeIfAbsent(userId, id -> new LongSet()).add(filmId);
+        });
+    }
+
+    void remove(long userId, long filmId) {
+        locks.withLock(userId, () -> {
+            LongSet films = filmsByUser.get(userId);
+            if (films != null && films.remove(filmId) && films.isEmpty()) {
+                filmsByUser.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * Переносит в индекс замену множества лайков фильма целиком, например при обновлении фильма.
+     */
+    void replace(long filmId, LongSet previousLikes, LongSet likes) {
+        if (previousLikes != null) {
+            previousLikes.forEachLong(userId -> {
+                if (!likes.contains(userId)) {
+                    remove(userId, filmId);
+                }
+            });
+        }
+        likes.forEachLong(userId -> add(userId, filmId));
+    }
+
+    /**
+     * Убирает из индекса удаленный фильм: обходятся только его лайки, а не все пользователи.
+     */
+    void removeFilm(long filmId, LongSet likes) {
+        likes.forEachLong(userId -> remove(userId, filmId));
+    }
+
+    /**
+     * Возвращает фильмы пользователя. Множество живое: его нельзя менять, а при чтении оно может меняться.
+     */
+    LongSet filmsOf(long userId) {
+        return filmsByUser.getOrDefault(userId, NO_FILMS);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Получатель изменений in-memory хранилищ, например журнал упреждающей записи.
+ * Хранилище вызывает его под блокировкой изменяемой сущности после того, как изменение применено,
+ * поэтому порядок записей для одной сущности совпадает с порядком изменений.
+ */
+public interface MutationJournal {
+
+    MutationJournal NONE = new MutationJournal() {
+    };
+
+    default void filmSaved(Film film) {
+    }
+
+    default void filmRemoved(long filmId) {
+    }
+
+    default void likeAdded(long filmId, long userId) {
+    }
+
+    default void likeRemoved(long filmId, long userId) {
+    }
+
+    default void userSaved(User user) {
+    }
+
+    /**
+     * Пользователь удален вместе со своими дружбами; его лайки снимаются отдельными записями {@link #likeRemoved}.
+     */
+    default void userRemoved(long userId) {
+    }
+
+    default void friendAdded(long userId, long friendId) {
+    }
+
+    default void friendRemoved(long userId, long friendId) {
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Лидерборд фильмов по количеству лайков.
+ * Порядок: больше лайков — выше, при равенстве — меньший id выше.
+ * Чтение не блокируется; изменения одного фильма вызывающий код должен выполнять под блокировкой этого фильма.
+ */
+class PopularityIndex {
+
+    private static final Comparator<Rank> ORDER = Comparator.comparingInt(Rank::likes).reversed()
+            .thenComparingLong(Rank::filmId);
+
+    private final NavigableSet<Rank> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Rank> ranks = new ConcurrentHashMap<>();
+
+    /**
+     * Новое место добавляется раньше, чем снимается старое, поэтому читатель всегда видит фильм хотя бы на одном
+     * из них. Обход может встретить фильм дважды — на старом и на новом месте; повторы отсекают методы чтения.
+     */
+    void update(long filmId, int likes) {
+        Rank rank = new Rank(filmId, likes);
+        Rank previous = ranks.put(filmId, rank);
+        if (rank.equals(previous)) {
+            return;
+        }
+        ranking.add(rank);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    void remove(long filmId) {
+        Rank previous = ranks.remove(filmId);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    /**
+     * Возвращает до {@code count} разных фильмов в порядке лидерборда.
+     */
+    List<Long> top(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(count);
+        forEachWhile(filmId -> {
+            ids.add(filmId);
+            return ids.size() < count;
+        });
+        return ids;
+    }
+
+    /**
+     * Обходит фильмы в порядке лидерборда, пока {@code action} возвращает true. Обход идет без блокировок,
+     * и фильм, место которого меняется во время обхода, может встретиться дважды: повтор пропускается.
+     */
+    void forEachWhile(LongPredicate action) {
+        LongSet seen = new LongSet();
+        for (Rank rank : ranking) {
+            if (seen.add(rank.filmId()) && !action.test(rank.filmId())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Возвращает до {@code count} фильмов, переданных источником {@code filmIds}, в порядке лидерборда.
+     * Повторы одного фильма допустимы: id фильмов в куче хранятся отдельным множеством, поэтому повтор
+     * отсекается за O(1), а не обходом кучи. Фильтр вызывается только для фильмов, которые прошли бы
+     * в текущую выборку, поэтому дорогую проверку можно передать в него.
+     */
+    List<Long> top(Consumer<LongConsumer> filmIds, LongPredicate filter, int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Rank> best = new PriorityQueue<>(ORDER.reversed());
+        LongSet inBest = new LongSet();
+        filmIds.accept(filmId -> {
+            Rank rank = ranks.get(filmId);
+            if (rank != null && (best.size() < count || ORDER.compare(rank, best.peek()) < 0)
+                    && !inBest.contains(filmId) && filter.test(filmId)) {
+                best.add(rank);
+                inBest.add(filmId);
+                if (best.size() > count) {
+                    inBest.remove(best.poll().filmId());
+                }
+            }
+        });
+        Long[] ids = new Long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = best.poll().filmId();
+        }
+        return Arrays.asList(ids);
+    }
+
+    private record Rank(long filmId, int likes) {
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Индекс дат релиза: день (epoch day) → фильмы, вышедшие в этот день. Дни отсортированы, поэтому фильмы
+ * периода лежат одним диапазоном карты и выбираются без обхода всего каталога.
+ * Вызывающий код меняет индекс под блокировкой фильма, а индекс берет блокировку дня. Чтение не блокируется.
+ */
+class ReleaseDateIndex {
+
+    private final ConcurrentNavigableMap<Long, LongSet> filmsByDay = new ConcurrentSkipListMap<>();
+    private final StripedLock locks = new StripedLock();
+
+    /**
+     * Переносит в индекс смену даты релиза фильма. Дата null означает, что фильма в индексе нет или не будет.
+     */
+    void replace(long filmId, LocalDate previous, LocalDate releaseDate) {
+        if (previous != null && previous.equals(releaseDate)) {
+            return;
+        }
+        if (previous != null) {
+            long day = previous.toEpochDay();
+            locks.withLock(day, () -> {
+                LongSet films = filmsByDay.get(day);
+                if (films != null && films.remove(filmId) && films.isEmpty()) {
+                    filmsByDay.remove(day);
+                }
+            });
+        }
+        if (releaseDate != null) {
+            long day = releaseDate.toEpochDay();
+            locks.withLock(day, () -> {
+                filmsByDay.computeIfAbsent(day, d -> new LongSet()).add(filmId);
+            });
+        }
+    }
+
+    /**
+     * Обходит фильмы, вышедшие с {@code from} по {@code to} включительно, по возрастанию даты, а в пределах
+     * дня — по возрастанию id, пока {@code action} возвращает true. Граница null означает открытый конец.
+     */
+    void forEachBetweenWhile(LocalDate from, LocalDate to, LongPredicate action) {
+        for (LongSet films : between(from, to).values()) {
+            long[] ids = films.toLongArray();
+            Arrays.sort(ids);
+            for (long id : ids) {
+                if (!action.test(id)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private NavigableMap<Long, LongSet> between(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return new ConcurrentSkipListMap<>();
+        }
+        NavigableMap<Long, LongSet> range = filmsByDay;
+        if (from != null) {
+            range = range.tailMap(from.toEpochDay(), true);
+        }
+        if (to != null) {
+            range = range.headMap(to.toEpochDay(), true);
+        }
+        return range;
+    }
+}
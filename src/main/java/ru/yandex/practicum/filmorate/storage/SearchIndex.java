@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Обратный индекс поиска: токен названия или описания → фильмы. Токены — последовательности букв и цифр
+ * в нижнем регистре. Карта токенов отсортирована, поэтому токены с общим префиксом лежат одним диапазоном.
+ * Вызывающий код меняет индекс под блокировкой фильма, а индекс берет блокировку токена. Чтение не блокируется.
+ */
+class SearchIndex {
+
+    private final ConcurrentNavigableMap<String, LongSet> filmsByToken = new ConcurrentSkipListMap<>();
+    private final StripedLock locks = new StripedLock();
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                token.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    static Set<String> tokensOf(Film film) {
+        Set<String> tokens = tokenize(film.getName());
+        tokens.addAll(tokenize(film.getDescription()));
+        return tokens;
+    }
+
+    /**
+     * Проверяет по тексту фильма, что в его названии или описании есть токен, начинающийся с {@code prefix}.
+     * Текст не разбивается на токены, поэтому проверка не создает объектов.
+     */
+    static boolean matches(Film film, String prefix) {
+        return hasWordWithPrefix(film.getName(), prefix) || hasWordWithPrefix(film.getDescription(), prefix);
+    }
+
+    private static boolean hasWordWithPrefix(String text, String prefix) {
+        if (text == null) {
+            return false;
+        }
+        boolean wordStart = true;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            boolean letterOrDigit = Character.isLetterOrDigit(codePoint);
+            if (letterOrDigit && wordStart && startsWith(text, i, prefix)) {
+                return true;
+            }
+            wordStart = !letterOrDigit;
+            i += Character.charCount(codePoint);
+        }
+        return false;
+    }
+
+    private static boolean startsWith(String text, int from, String prefix) {
+        int i = from;
+        for (int j = 0; j < prefix.length(); ) {
+            if (i >= text.length()) {
+                return false;
+            }
+            int actual = text.codePointAt(i);
+            int expected = prefix.codePointAt(j);
+            if (Character.toLowerCase(actual) != expected) {
+                return false;
+            }
+            i += Character.charCount(actual);
+            j += Character.charCount(expected);
+        }
+        return true;
+    }
+
+    /**
+     * Переносит в индекс замену фильма: снимает токены, которых больше нет, и добавляет новые.
+     * Фильм null означает, что фильм удален.
+     */
+    void replace(long filmId, Film previous, Film film) {
+        Set<String> tokens = film == null ? Set.of() : tokensOf(film);
+        if (previous != null) {
+            for (String token : tokensOf(previous)) {
+                if (!tokens.contains(token)) {
+                    remove(token, filmId);
+                }
+            }
+        }
+        for (String token : tokens) {
+            locks.withLock(token.hashCode(), () -> {
+                filmsByToken.computeIfAbsent(token, t -> new LongSet()).add(filmId);
+            });
+        }
+    }
+
+    /**
+     * Считает фильмы у токена {@code term} или, если {@code prefix}, у всех токенов с таким началом,
+     * останавливаясь, как только сумма превысит {@code limit}. Фильм с несколькими подходящими
+     * токенами учитывается несколько раз, поэтому это оценка сверху.
+     */
+    long estimate(String term, boolean prefix, long limit) {
+        long total = 0;
+        for (LongSet films : matching(term, prefix)) {
+            total += films.size();
+            if (total > limit) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Передает {@code action} фильмы подходящих токенов. Фильм с несколькими такими токенами передается несколько раз.
+     */
+    void forEachMatching(String term, boolean prefix, LongConsumer action) {
+        for (LongSet films : matching(term, prefix)) {
+            films.forEachLong(action);
+        }
+    }
+
+    /**
+     * Возвращает множества фильмов подходящих токенов или null, если токенов больше {@code maxTokens}.
+     * Множества живые: их нельзя менять, а при чтении они могут меняться.
+     */
+    List<LongSet> postings(String term, boolean prefix, int maxTokens) {
+        List<LongSet> postings = new ArrayList<>();
+        for (LongSet films : matching(term, prefix)) {
+            if (postings.size() == maxTokens) {
+                return null;
+            }
+            postings.add(films);
+        }
+        return postings;
+    }
+
+    private Collection<LongSet> matching(String term, boolean prefix) {
+        if (prefix) {
+            return filmsByToken.subMap(term, true, term + Character.MAX_VALUE, false).values();
+        }
+        LongSet films = filmsByToken.get(term);
+        return films == null ? List.of() : List.of(films);
+    }
+
+    private void remove(String token, long filmId) {
+        locks.withLock(token.hashCode(), () -> {
+            LongSet films = filmsByToken.get(token);
+            if (films != null && films.remove(filmId) && films.isEmpty()) {
+                filmsByToken.remove(token);
+            }
+        });
+    }
+}
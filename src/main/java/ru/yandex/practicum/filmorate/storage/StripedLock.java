@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Набор блокировок, распределенных по id сущностей.
+ * Операции над разными сущностями, как правило, попадают в разные полосы и не мешают друг другу.
+ */
+class StripedLock {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] locks;
+
+    StripedLock() {
+        this(DEFAULT_STRIPES);
+    }
+
+    StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    <T> T withLock(long id, Supplier<T> action) {
+        ReentrantLock lock = locks[index(id)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void withLock(long id, Runnable action) {
+        withLock(id, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Выполняет действие под блокировками обоих id.
+     * Полосы захватываются в порядке возрастания индекса, чтобы исключить взаимную блокировку.
+     */
+    void withLocks(long firstId, long secondId, Runnable action) {
+        int first = index(firstId);
+        int second = index(secondId);
+        ReentrantLock outer = locks[Math.min(first, second)];
+        ReentrantLock inner = locks[Math.max(first, second)];
+        outer.lock();
+        try {
+            inner.lock();
+            try {
+                action.run();
+            } finally {
+                inner.unlock();
+            }
+        } finally {
+            outer.unlock();
+        }
+    }
+
+    private int index(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (locks.length - 1);
+    }
+}
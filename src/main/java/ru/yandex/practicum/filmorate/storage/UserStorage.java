@@ -1,18 +1,66 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface UserStorage {
     Collection<User> findAll();
 
+    /**
+     * Возвращает до {@code limit} пользователей с id больше {@code afterId} в порядке возрастания id.
+     */
+    List<User> findPage(long afterId, int limit);
+
+    /**
+     * Создает пользователя без друзей: друзья из переданного объекта не учитываются.
+     */
     User create(User user);
 
+    /**
+     * Заменяет профиль пользователя. Друзья из переданного объекта не учитываются, остаются текущие —
+     * они меняются только через {@link #addFriend} и {@link #removeFriend}.
+     */
     User update(User user);
 
+    /**
+     * Меняет только заданные в патче поля пользователя и проверяет только их.
+     */
+    User patch(UserPatch patch);
+
     User findById(long id);
 
+    /**
+     * Удаляет пользователя вместе с его дружбами. Лайки пользователя хранятся у фильмов
+     * и снимаются через {@link FilmStorage#removeUserLikes}.
+     */
+    void delete(long id);
+
     Collection<User> findFriendsById(long id);
 
+    List<User> findCommonFriends(long id, long otherId);
+
+    /**
+     * Возвращает до {@code limit} друзей друзей пользователя {@code id}, не являющихся его друзьями,
+     * по убыванию числа общих друзей; при равенстве — по возрастанию id.
+     */
+    List<User> findRecommendations(long id, int limit);
+
+    void addFriend(long userId, long friendId);
+
+    void removeFriend(long userId, long friendId);
+
+    /**
+     * Версия списка друзей пользователя: растет после изменения его дружб или профиля любого из его друзей.
+     */
+    long friendsVersion(long userId);
+
+    long count();
+
+    /**
+     * Возвращает число записей о дружбе. Дружба взаимная, поэтому каждая пара друзей дает две записи.
+     */
+    long countFriendLinks();
 }
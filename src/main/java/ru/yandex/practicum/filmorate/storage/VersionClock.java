@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии данных хранилища для условных запросов. Общая версия растет после каждого изменения,
+ * отдельные сущности помечаются значением общей версии на момент своего последнего изменения.
+ * Отметку нужно ставить после того, как изменение стало видно читателям: тогда ответ, собранный
+ * после чтения версии, не старше этой версии.
+ */
+public class VersionClock {
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Long, Long> stamps = new ConcurrentHashMap<>();
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Увеличивает общую версию и помечает ею указанные сущности.
+     */
+    public void tick(long... ids) {
+        long next = version.incrementAndGet();
+        for (long id : ids) {
+            stamps.merge(id, next, Math::max);
+        }
+    }
+
+    /**
+     * То же, что {@link #tick(long...)}, но внутри транзакции откладывает отметку до ее фиксации:
+     * до этого читатели видят старые данные, и новая версия не должна появиться раньше них.
+     */
+    public void tickAfterCommit(long... ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            tick(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                tick(ids);
+            }
+        });
+    }
+
+    /**
+     * Возвращает версию последнего изменения сущности или 0, если она не менялась.
+     */
+    public long stampOf(long id) {
+        return stamps.getOrDefault(id, 0L);
+    }
+}
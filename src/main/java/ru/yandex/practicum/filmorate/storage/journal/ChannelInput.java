@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Последовательное чтение файла через {@link FileChannel} в прямой буфер.
+ * В отличие от {@code DataInputStream} над {@code BufferedInputStream} не берет блокировку на каждое поле,
+ * что заметно на снимках с миллионами записей. Строковые методы {@link DataInput} не поддерживаются.
+ */
+final class ChannelInput implements DataInput, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    ChannelInput(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.limit(0);
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException {
+        readFully(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            require(1);
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    @Override
+    public int skipBytes(int count) throws IOException {
+        readFully(new byte[count]);
+        return count;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        require(Byte.BYTES);
+        return buffer.get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(Short.BYTES);
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        require(Character.BYTES);
+        return buffer.getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    @Override
+    public String readLine() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String readUTF() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,220 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Двоичный формат записей журнала и снимка.
+ * Запись начинается с байта типа, за которым идут поля сущности или пары id.
+ */
+final class JournalCodec {
+
+    static final byte END = 0;
+    static final byte FILM_SAVED = 1;
+    static final byte LIKE_ADDED = 2;
+    static final byte LIKE_REMOVED = 3;
+    static final byte USER_SAVED = 4;
+    static final byte FRIEND_ADDED = 5;
+    static final byte FRIEND_REMOVED = 6;
+    /**
+     * Фильм с рейтингом и жанрами. Записи {@link #FILM_SAVED} старых журналов читаются как фильмы без них.
+     */
+    static final byte FILM_WITH_CATEGORIES_SAVED = 7;
+    static final byte FILM_REMOVED = 8;
+    static final byte USER_REMOVED = 9;
+    /**
+     * Последние выданные id фильмов и пользователей, открывают снимок. В старых снимках их нет,
+     * и счетчики восстанавливаются только по сохраненным сущностям.
+     */
+    static final byte FILM_IDS_ISSUED = 10;
+    static final byte USER_IDS_ISSUED = 11;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_MPA = 0;
+
+    private JournalCodec() {
+    }
+
+    static void writeFilm(DataOutput out, Film film) throws IOException {
+        out.writeByte(FILM_WITH_CATEGORIES_SAVED);
+        out.writeLong(film.getId());
+        writeString(out, film.getName());
+        writeString(out, film.getDescription());
+        writeDate(out, film.getReleaseDate());
+        out.writeInt(film.getDuration());
+        writeIds(out, film.getLikes());
+        out.writeInt(film.getMpa() == null ? NO_MPA : film.getMpa().getId());
+        List<Genre> genres = film.getGenres() == null ? List.of() : film.getGenres();
+        out.writeInt(genres.size());
+        for (Genre genre : genres) {
+            out.writeInt(genre.getId());
+        }
+    }
+
+    static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeByte(USER_SAVED);
+        out.writeLong(user.getId());
+        writeString(out, user.getEmail());
+        writeString(out, user.getLogin());
+        writeString(out, user.getName());
+        writeDate(out, user.getBirthday());
+        writeIds(out, user.getFriends());
+    }
+
+    static void writeId(DataOutput out, byte type, long id) throws IOException {
+        out.writeByte(type);
+        out.writeLong(id);
+    }
+
+    static void writePair(DataOutput out, byte type, long first, long second) throws IOException {
+        out.writeByte(type);
+        out.writeLong(first);
+        out.writeLong(second);
+    }
+
+    /**
+     * Применяет запись указанного типа к хранилищам.
+     * Хранилища в этот момент не должны быть подключены к журналу, иначе записи задвоятся.
+     * Журнал после снимка может повторять изменения, уже вошедшие в него, в том числе изменения сущностей,
+     * которых в снимке уже нет, потому что их удалили позже. Такие записи пропускаются: запись об удалении
+     * идет в журнале после них. Id удаленной сущности при этом все равно сдвигает счетчик id, чтобы его
+     * не выдали повторно.
+     */
+    static void apply(byte type, DataInput in, InMemoryFilmStorage filmStorage,
+                      InMemoryUserStorage userStorage) throws IOException {
+        switch (type) {
+            case FILM_SAVED -> filmStorage.restore(readFilm(in));
+            case FILM_WITH_CATEGORIES_SAVED -> filmStorage.restore(readFilmWithCategories(in));
+            case USER_SAVED -> userStorage.restore(readUser(in));
+            case FILM_REMOVED -> {
+                long id = in.readLong();
+                filmStorage.advanceIdsTo(id);
+                skipMissing(filmStorage::delete, id);
+            }
+            case USER_REMOVED -> {
+                long id = in.readLong();
+                userStorage.advanceIdsTo(id);
+                skipMissing(userStorage::delete, id);
+            }
+            case FILM_IDS_ISSUED -> filmStorage.advanceIdsTo(in.readLong());
+            case USER_IDS_ISSUED -> userStorage.advanceIdsTo(in.readLong());
+            case LIKE_ADDED -> skipMissing(filmStorage::addLike, in.readLong(), in.readLong());
+            case LIKE_REMOVED -> skipMissing(filmStorage::removeLike, in.readLong(), in.readLong());
+            case FRIEND_ADDED -> skipMissing(userStorage::addFriend, in.readLong(), in.readLong());
+            case FRIEND_REMOVED -> skipMissing(userStorage::removeFriend, in.readLong(), in.readLong());
+            default -> throw new IOException("Неизвестный тип записи: " + type);
+        }
+    }
+
+    private static void skipMissing(LongConsumer change, long id) {
+        try {
+            change.accept(id);
+        } catch (NotFoundException e) {
+            // сущность удалена позже, и ее удаление уже отражено в снимке
+        }
+    }
+
+    private static void skipMissing(BiConsumer<Long, Long> change, long first, long second) {
+        try {
+            change.accept(first, second);
+        } catch (NotFoundException e) {
+            // сущность удалена позже, и ее удаление уже отражено в снимке
+        }
+    }
+
+    private static Film readFilm(DataInput in) throws IOException {
+        long id = in.readLong();
+        String name = readString(in);
+        String description = readString(in);
+        LocalDate releaseDate = readDate(in);
+        int duration = in.readInt();
+        return new Film(id, name, description, releaseDate, duration, readIds(in));
+    }
+
+    /**
+     * Рейтинг и жанры читаются только с id: названия подставит хранилище из справочника.
+     */
+    private static Film readFilmWithCategories(DataInput in) throws IOException {
+        Film film = readFilm(in);
+        int mpaId = in.readInt();
+        film.setMpa(mpaId == NO_MPA ? null : new Mpa(mpaId, null));
+        int count = in.readInt();
+        List<Genre> genres = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            genres.add(new Genre(in.readInt(), null));
+        }
+        film.setGenres(genres);
+        return film;
+    }
+
+    private static User readUser(DataInput in) throws IOException {
+        long id = in.readLong();
+        String email = readString(in);
+        String login = readString(in);
+        String name = readString(in);
+        LocalDate birthday = readDate(in);
+        return new User(id, email, login, name, birthday, readIds(in));
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static void writeIds(DataOutput out, LongSet ids) throws IOException {
+        long[] values = ids == null ? new long[0] : ids.toLongArray();
+        out.writeInt(values.length);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static LongSet readIds(DataInput in) throws IOException {
+        int count = in.readInt();
+        LongSet ids = new LongSet(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(in.readLong());
+        }
+        return ids;
+    }
+}
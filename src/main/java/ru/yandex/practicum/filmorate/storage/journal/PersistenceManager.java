@@ -0,0 +1,273 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.MutationJournal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Сохраняет состояние in-memory хранилищ между перезапусками.
+ * При старте загружает последний снимок и доигрывает хвост журнала, затем подключает к хранилищам новый журнал.
+ * Снимки пишутся по расписанию и при остановке; после снимка старые сегменты журнала удаляются.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${filmorate.persistence.enabled:false} and '${filmorate.storage:memory}' == 'memory'")
+public class PersistenceManager {
+
+    private static final long MAGIC = 0x46494C4D534E4150L;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final String SNAPSHOT_PATTERN = "snapshot-%06d.bin";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("journal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final Path dir;
+    private final long syncIntervalMs;
+    private final long snapshotIntervalS;
+    private final Object snapshotLock = new Object();
+
+    private FileMutationJournal journal;
+    private ScheduledExecutorService scheduler;
+
+    public PersistenceManager(InMemoryFilmStorage filmStorage,
+                              InMemoryUserStorage userStorage,
+                              @Value("${filmorate.persistence.dir:data}") Path dir,
+                              @Value("${filmorate.persistence.sync-interval-ms:50}") long syncIntervalMs,
+                              @Value("${filmorate.persistence.snapshot-interval-s:600}") long snapshotIntervalS) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.dir = dir;
+        this.syncIntervalMs = syncIntervalMs;
+        this.snapshotIntervalS = snapshotIntervalS;
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            Files.createDirectories(dir);
+            int segment = recover();
+            journal = new FileMutationJournal(dir, segment, syncIntervalMs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить состояние хранилищ", e);
+        }
+        filmStorage.setJournal(journal);
+        userStorage.setJournal(journal);
+        if (snapshotIntervalS > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalS, snapshotIntervalS,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Пишет снимок текущего состояния и удаляет файлы, которые он заменяет.
+     * Журнал переключается на новый сегмент до обхода хранилищ, поэтому изменения, сделанные во время обхода,
+     * попадут в новый сегмент; повторное применение записей к снимку ничего не ломает.
+     */
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            int segment = journal.rotate();
+            Path target = dir.resolve(String.format(SNAPSHOT_PATTERN, segment));
+            Path tmp = dir.resolve(target.getFileName() + ".tmp");
+            try {
+                writeSnapshot(tmp);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                deleteBefore(SEGMENT_FILE, segment);
+                deleteBefore(SNAPSHOT_FILE, segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось записать снимок", e);
+            }
+            log.info("Записан снимок {}", target);
+        }
+    }
+
+    /**
+     * Сбрасывает накопленные записи журнала на диск.
+     */
+    public void flush() {
+        journal.flush();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        snapshot();
+        filmStorage.setJournal(MutationJournal.NONE);
+        userStorage.setJournal(MutationJournal.NONE);
+        journal.close();
+    }
+
+    /**
+     * Загружает последний снимок и доигрывает сегменты журнала после него.
+     * Возвращает номер, с которого нужно начинать новый сегмент.
+     * Вызывается из {@link #start()}; напрямую — только для пустых хранилищ без подключенного журнала.
+     */
+    public int recover() throws IOException {
+        long start = System.nanoTime();
+        int snapshot = latest(SNAPSHOT_FILE);
+        if (snapshot > 0) {
+            readSnapshot(dir.resolve(String.format(SNAPSHOT_PATTERN, snapshot)));
+        }
+        int next = Math.max(snapshot, 1);
+        for (int segment : numbers(SEGMENT_FILE)) {
+            if (segment >= snapshot) {
+                replay(dir.resolve(String.format(FileMutationJournal.SEGMENT_PATTERN, segment)));
+                next = segment + 1;
+            }
+        }
+        log.info("Состояние восстановлено за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return next;
+    }
+
+    private void writeSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            out.writeLong(MAGIC);
+            JournalCodec.writeId(out, JournalCodec.FILM_IDS_ISSUED, filmStorage.lastId());
+            JournalCodec.writeId(out, JournalCodec.USER_IDS_ISSUED, userStorage.lastId());
+            for (User user : userStorage.findAll()) {
+                JournalCodec.writeUser(out, user);
+            }
+            for (Film film : filmStorage.findAll()) {
+                JournalCodec.writeFilm(out, film);
+            }
+            out.writeByte(JournalCodec.END);
+            out.writeLong(MAGIC);
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private void readSnapshot(Path file) throws IOException {
+        try (ChannelInput in = new ChannelInput(file)) {
+            if (in.readLong() != MAGIC) {
+                throw new IOException("Поврежден снимок " + file);
+            }
+            byte type;
+            while ((type = in.readByte()) != JournalCodec.END) {
+                JournalCodec.apply(type, in, filmStorage, userStorage);
+            }
+            if (in.readLong() != MAGIC) {
+                throw new IOException("Поврежден снимок " + file);
+            }
+        }
+    }
+
+    /**
+     * Применяет записи сегмента по порядку. Запись с неверной длиной или контрольной суммой считается
+     * недописанным хвостом: чтение сегмента на ней заканчивается.
+     */
+    private void replay(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 2);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            while (true) {
+                header.clear();
+                int headerRead = in.readNBytes(header.array(), 0, header.capacity());
+                if (headerRead == 0) {
+                    return;
+                }
+                int length = header.getInt(0);
+                if (headerRead < header.capacity() || length <= 0 || length > MAX_RECORD_SIZE) {
+                    log.warn("Недописанная запись в {}, хвост сегмента пропущен", file);
+                    return;
+                }
+                byte[] payload = in.readNBytes(length);
+                crc.reset();
+                crc.update(payload);
+                if (payload.length < length || (int) crc.getValue() != header.getInt(Integer.BYTES)) {
+                    log.warn("Недописанная запись в {}, хвост сегмента пропущен", file);
+                    return;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                try {
+                    JournalCodec.apply(record.readByte(), record, filmStorage, userStorage);
+                } catch (EOFException e) {
+                    throw new IOException("Повреждена запись в " + file, e);
+                }
+            }
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Ошибка записи снимка", e);
+        }
+    }
+
+    private int latest(Pattern pattern) throws IOException {
+        List<Integer> numbers = numbers(pattern);
+        return numbers.isEmpty() ? 0 : numbers.get(numbers.size() - 1);
+    }
+
+    private void deleteBefore(Pattern pattern, int number) throws IOException {
+        for (int existing : numbers(pattern)) {
+            if (existing < number) {
+                String name = pattern == SEGMENT_FILE
+                        ? String.format(FileMutationJournal.SEGMENT_PATTERN, existing)
+                        : String.format(SNAPSHOT_PATTERN, existing);
+                Files.deleteIfExists(dir.resolve(name));
+            }
+        }
+    }
+
+    private List<Integer> numbers(Pattern pattern) throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Integer.parseInt(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+}
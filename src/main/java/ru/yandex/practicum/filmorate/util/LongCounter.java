@@ -0,0 +1,193 @@
+package ru.yandex.practicum.filmorate.util;
+
+/**
+ * Счетчик вхождений примитивных long на открытой адресации.
+ * Ключи и значения лежат в параллельных массивах long[] и int[], без упаковки и узлов HashMap.
+ * Предназначен для локального использования внутри одного запроса и не потокобезопасен.
+ */
+public class LongCounter {
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] counts;
+    private int emptyKeyCount;
+    private int size;
+
+    public LongCounter() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongCounter(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * Увеличивает счетчик ключа на единицу и возвращает новое значение.
+     */
+    public int increment(long key) {
+        return add(key, 1);
+    }
+
+    /**
+     * Увеличивает счетчик ключа на {@code delta} и возвращает новое значение.
+     */
+    public int add(long key, int delta) {
+        if (key == EMPTY) {
+            if (emptyKeyCount == 0) {
+                size++;
+            }
+            emptyKeyCount += delta;
+            return emptyKeyCount;
+        }
+        int mask = keys.length - 1;
+        int index = slot(key, mask);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                counts[index] += delta;
+                return counts[index];
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        counts[index] = delta;
+        size++;
+        if (size * 4L > keys.length * 3L) {
+            rehash();
+        }
+        return delta;
+    }
+
+    public int get(long key) {
+        if (key == EMPTY) {
+            return emptyKeyCount;
+        }
+        int mask = keys.length - 1;
+        int index = slot(key, mask);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return counts[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает до {@code limit} ключей с наибольшими счетчиками: по убыванию счетчика, при равенстве по возрастанию ключа.
+     * Использует min-кучу размера {@code limit}, поэтому работает за O(n log limit) без сортировки всех ключей.
+     */
+    public long[] topKeys(int limit) {
+        int capacity = Math.min(limit, size);
+        long[] heapKeys = new long[capacity];
+        int[] heapCounts = new int[capacity];
+        int heapSize = 0;
+        if (emptyKeyCount > 0 && capacity > 0) {
+            heapKeys[0] = EMPTY;
+            heapCounts[0] = emptyKeyCount;
+            heapSize = 1;
+        }
+        for (int i = 0; i < keys.length && capacity > 0; i++) {
+            if (keys[i] == EMPTY) {
+                continue;
+            }
+            if (heapSize < capacity) {
+                heapKeys[heapSize] = keys[i];
+                heapCounts[heapSize] = counts[i];
+                siftUp(heapKeys, heapCounts, heapSize++);
+            } else if (ranksHigher(counts[i], keys[i], heapCounts[0], heapKeys[0])) {
+                heapKeys[0] = keys[i];
+                heapCounts[0] = counts[i];
+                siftDown(heapKeys, heapCounts, heapSize);
+            }
+        }
+        long[] result = new long[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = heapKeys[0];
+            heapKeys[0] = heapKeys[i];
+            heapCounts[0] = heapCounts[i];
+            siftDown(heapKeys, heapCounts, i);
+        }
+        return result;
+    }
+
+    private static boolean ranksHigher(int count, long key, int otherCount, long otherKey) {
+        return count > otherCount || (count == otherCount && key < otherKey);
+    }
+
+    private static void siftUp(long[] heapKeys, int[] heapCounts, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksHigher(heapCounts[parent], heapKeys[parent], heapCounts[index], heapKeys[index])) {
+                return;
+            }
+            swap(heapKeys, heapCounts, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heapKeys, int[] heapCounts, int heapSize) {
+        int index = 0;
+        while (true) {
+            int lowest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && ranksHigher(heapCounts[lowest], heapKeys[lowest], heapCounts[left], heapKeys[left])) {
+                lowest = left;
+            }
+            if (right < heapSize
+                    && ranksHigher(heapCounts[lowest], heapKeys[lowest], heapCounts[right], heapKeys[right])) {
+                lowest = right;
+            }
+            if (lowest == index) {
+                return;
+            }
+            swap(heapKeys, heapCounts, index, lowest);
+            index = lowest;
+        }
+    }
+
+    private static void swap(long[] heapKeys, int[] heapCounts, int first, int second) {
+        long key = heapKeys[first];
+        heapKeys[first] = heapKeys[second];
+        heapKeys[second] = key;
+        int count = heapCounts[first];
+        heapCounts[first] = heapCounts[second];
+        heapCounts[second] = count;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = slot(oldKeys[i], mask);
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long required = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / 0.75) + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(required - 1) << 1);
+    }
+
+    private static int slot(long value, int mask) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
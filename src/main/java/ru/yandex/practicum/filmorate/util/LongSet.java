@@ -0,0 +1,321 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Множество примитивных long на открытой адресации с линейным пробированием.
+ * Хранит значения прямо в массиве long[], без упаковки в Long и без узлов HashMap.
+ * Для совместимости с Jackson и существующим кодом реализует {@code Set<Long>}.
+ * <p>
+ * Изменения должны выполняться под внешней блокировкой владельца множества.
+ * Чтение без блокировки допустимо: таблица публикуется через volatile-поле,
+ * удаление оставляет метку, а не сдвигает элементы, поэтому итерация слабо согласована,
+ * как у конкурентных коллекций, и не выдает дубликатов.
+ */
+public class LongSet extends AbstractSet<Long> {
+
+    private static final long EMPTY = 0L;
+    private static final long REMOVED = Long.MIN_VALUE;
+    private static final long[] NO_TABLE = new long[0];
+    private static final int MIN_CAPACITY = 4;
+
+    private volatile long[] table = NO_TABLE;
+    private volatile boolean hasEmptyValue;
+    private volatile boolean hasRemovedValue;
+    private volatile int size;
+    private int used;
+
+    public LongSet() {
+    }
+
+    public LongSet(int expectedSize) {
+        if (expectedSize > 0) {
+            table = new long[capacityFor(expectedSize)];
+        }
+    }
+
+    public static LongSet copyOf(Collection<Long> values) {
+        if (values instanceof LongSet longSet) {
+            LongSet copy = new LongSet(longSet.size());
+            longSet.forEachLong(copy::add);
+            return copy;
+        }
+        LongSet copy = new LongSet(values.size());
+        for (Long value : values) {
+            copy.add((long) value);
+        }
+        return copy;
+    }
+
+    public static LongSet of(long... values) {
+        LongSet set = new LongSet(values.length);
+        for (long value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    public boolean add(long value) {
+        if (value == EMPTY || value == REMOVED) {
+            if (contains(value)) {
+                return false;
+            }
+            setSpecial(value, true);
+            size++;
+            return true;
+        }
+        if (contains(value)) {
+            return false;
+        }
+        long[] current = table;
+        if (current.length == 0 || (used + 1) * 4L > current.length * 3L) {
+            current = rehash(size + 1);
+        }
+        int mask = current.length - 1;
+        int index = slot(value, mask);
+        while (current[index] != EMPTY && current[index] != REMOVED) {
+            index = (index + 1) & mask;
+        }
+        if (current[index] == EMPTY) {
+            used++;
+        }
+        current[index] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(long value) {
+        if (value == EMPTY || value == REMOVED) {
+            if (!contains(value)) {
+                return false;
+            }
+            setSpecial(value, false);
+            size--;
+            return true;
+        }
+        long[] current = table;
+        int index = find(current, value);
+        if (index < 0) {
+            return false;
+        }
+        current[index] = REMOVED;
+        size--;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return hasEmptyValue;
+        }
+        if (value == REMOVED) {
+            return hasRemovedValue;
+        }
+        return find(table, value) >= 0;
+    }
+
+    public void forEachLong(LongConsumer action) {
+        if (hasEmptyValue) {
+            action.accept(EMPTY);
+        }
+        if (hasRemovedValue) {
+            action.accept(REMOVED);
+        }
+        for (long value : table) {
+            if (value != EMPTY && value != REMOVED) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * Обходит элементы, пока {@code action} возвращает true. Позволяет ограничить обход больших множеств.
+     */
+    public void forEachLongWhile(LongPredicate action) {
+        if (hasEmptyValue && !action.test(EMPTY)) {
+            return;
+        }
+        if (hasRemovedValue && !action.test(REMOVED)) {
+            return;
+        }
+        for (long value : table) {
+            if (value != EMPTY && value != REMOVED && !action.test(value)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Передает в {@code action} элементы, общие с {@code other}.
+     * Обходится меньшее множество, элементы ищутся в большем, поэтому время
+     * пропорционально размеру меньшего множества и не требует выделения памяти на элемент.
+     */
+    public void forEachCommon(LongSet other, LongConsumer action) {
+        LongSet smaller = size <= other.size ? this : other;
+        LongSet larger = smaller == this ? other : this;
+        smaller.forEachLong(value -> {
+            if (larger.contains(value)) {
+                action.accept(value);
+            }
+        });
+    }
+
+    public long[] toLongArray() {
+        long[] result = new long[size];
+        int[] position = {0};
+        forEachLong(value -> {
+            if (position[0] < result.length) {
+                result[position[0]++] = value;
+            }
+        });
+        return position[0] == result.length ? result : Arrays.copyOf(result, position[0]);
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return add((long) value);
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        return value instanceof Long longValue && remove((long) longValue);
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long longValue && contains((long) longValue);
+    }
+
+    @Override
+    public void clear() {
+        table = NO_TABLE;
+        hasEmptyValue = false;
+        hasRemovedValue = false;
+        size = 0;
+        used = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new LongSetIterator();
+    }
+
+    private void setSpecial(long value, boolean present) {
+        if (value == EMPTY) {
+            hasEmptyValue = present;
+        } else {
+            hasRemovedValue = present;
+        }
+    }
+
+    private long[] rehash(int expectedSize) {
+        long[] current = table;
+        long[] resized = new long[Math.max(current.length, capacityFor(expectedSize))];
+        int mask = resized.length - 1;
+        int count = 0;
+        for (long value : current) {
+            if (value != EMPTY && value != REMOVED) {
+                int index = slot(value, mask);
+                while (resized[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                resized[index] = value;
+                count++;
+            }
+        }
+        used = count;
+        table = resized;
+        return resized;
+    }
+
+    private static int find(long[] current, long value) {
+        if (current.length == 0) {
+            return -1;
+        }
+        int mask = current.length - 1;
+        int index = slot(value, mask);
+        for (int probes = 0; probes < current.length; probes++) {
+            long candidate = current[index];
+            if (candidate == value) {
+                return index;
+            }
+            if (candidate == EMPTY) {
+                return -1;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long required = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / 0.75) + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(required - 1) << 1);
+    }
+
+    private static int slot(long value, int mask) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private class LongSetIterator implements Iterator<Long> {
+        private final long[] snapshot = table;
+        private int special = 0;
+        private int index = -1;
+        private long last;
+        private boolean canRemove;
+
+        @Override
+        public boolean hasNext() {
+            while (special < 2) {
+                if ((special == 0 && hasEmptyValue) || (special == 1 && hasRemovedValue)) {
+                    return true;
+                }
+                special++;
+            }
+            return nextIndex() < snapshot.length;
+        }
+
+        @Override
+        public Long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (special < 2) {
+                last = special == 0 ? EMPTY : REMOVED;
+                special++;
+            } else {
+                index = nextIndex();
+                last = snapshot[index];
+            }
+            canRemove = true;
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            LongSet.this.remove(last);
+            canRemove = false;
+        }
+
+        private int nextIndex() {
+            int next = index + 1;
+            while (next < snapshot.length && (snapshot[next] == EMPTY || snapshot[next] == REMOVED)) {
+                next++;
+            }
+            return next;
+        }
+    }
+}
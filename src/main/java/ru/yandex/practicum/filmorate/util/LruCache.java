@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Потокобезопасный кеш на не больше чем {@code capacity} записей. При переполнении вытесняется запись,
+ * к которой дольше всех не обращались, поэтому кеш не забивается записями удаленных или давно неактивных ключей.
+ * Порядок обращений хранит {@link LinkedHashMap}, и чтение его меняет, поэтому все операции идут под одним
+ * замком. Замок — {@link ReentrantLock}, а не монитор, чтобы не закреплять виртуальные потоки запросов.
+ */
+public class LruCache<K, V> {
+
+    private final Map<K, V> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public LruCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость кеша должна быть положительной: " + capacity);
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public V get(K key) {
+        lock.lock();
+        try {
+            return entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            entries.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V putIfAbsent(K key, V value) {
+        lock.lock();
+        try {
+            return entries.putIfAbsent(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Заменяет значение, только если сейчас по ключу лежит именно {@code expected} (сравнение по ссылке).
+     */
+    public boolean replace(K key, V expected, V value) {
+        lock.lock();
+        try {
+            V current = entries.get(key);
+            if (current == null || current != expected) {
+                return false;
+            }
+            entries.put(key, value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Как {@link Map#compute}: функция выполняется под замком кеша, поэтому должна быть короткой.
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        Objects.requireNonNull(remapping);
+        lock.lock();
+        try {
+            return entries.compute(key, remapping);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V remove(K key) {
+        lock.lock();
+        try {
+            return entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+CREATE TABLE IF NOT EXISTS users (
+    user_id  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE         NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS mpa (
+    mpa_id INT          PRIMARY KEY,
+    name   VARCHAR(16)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS genres (
+    genre_id INT          PRIMARY KEY,
+    name     VARCHAR(64)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS films (
+    film_id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE         NOT NULL,
+    duration     INT          NOT NULL,
+    like_count   INT          NOT NULL DEFAULT 0,
+    mpa_id       INT          REFERENCES mpa (mpa_id)
+);
+
+CREATE INDEX IF NOT EXISTS films_popularity_idx ON films (like_count DESC, film_id);
+
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date, film_id);
+
+CREATE INDEX IF NOT EXISTS films_mpa_idx ON films (mpa_id);
+
+CREATE TABLE IF NOT EXISTS film_genres (
+    film_id  BIGINT NOT NULL REFERENCES films (film_id) ON DELETE CASCADE,
+    genre_id INT    NOT NULL REFERENCES genres (genre_id),
+    PRIMARY KEY (film_id, genre_id)
+);
+
+CREATE INDEX IF NOT EXISTS film_genres_genre_idx ON film_genres (genre_id, film_id);
+
+CREATE TABLE IF NOT EXISTS likes (
+    film_id BIGINT NOT NULL REFERENCES films (film_id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS likes_user_idx ON likes (user_id, film_id);
+
+CREATE TABLE IF NOT EXISTS friendship (
+    user_id   BIGINT      NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    friend_id BIGINT      NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    status    VARCHAR(16) NOT NULL DEFAULT 'accepted',
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendship_friend_idx ON friendship (friend_id);
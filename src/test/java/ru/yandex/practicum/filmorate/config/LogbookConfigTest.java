@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class LogbookConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    protected void listResponsesAreLoggedWithoutBody(CapturedOutput output) throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Logged Film\",\"description\":\"Description\","
+                                + "\"releaseDate\":\"2000-01-01\",\"duration\":120}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/films")).andExpect(status().isOk());
+
+        List<String> responses = awaitResponses(output, 2);
+        assertTrue(responses.get(0).contains("\"status\":201") && responses.get(0).contains("Logged Film"),
+                responses.get(0));
+        assertTrue(responses.get(1).contains("\"status\":200") && !responses.get(1).contains("\"body\""),
+                responses.get(1));
+    }
+
+    private static List<String> awaitResponses(CapturedOutput output, int count) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            List<String> responses = Arrays.stream(output.getOut().split("\n"))
+                    .filter(line -> line.contains("\"type\":\"response\""))
+                    .collect(Collectors.toList());
+            if (responses.size() >= count) {
+                return responses.subList(responses.size() - count, responses.size());
+            }
+            Thread.sleep(50);
+        }
+        fail("Журнал HTTP-запросов не записан: " + output.getOut());
+        return List.of();
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportControllerTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MockMvc mockMvc;
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private ExportController exportController;
+
+    @BeforeEach
+    protected void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        exportController = new ExportController(filmStorage, userStorage, objectMapper);
+    }
+
+    @Test
+    protected void exportFilms_writesOneRecordPerLine() throws Exception {
+        Film liked = filmStorage.create(new Film(null, "Film Name 1", "Description 1", LocalDate.parse("2000-01-01"), 120, null));
+        filmStorage.addLike(liked.getId(), 1L);
+        filmStorage.create(new Film(null, "Film Name 2", "Description 2", LocalDate.parse("2001-01-01"), 130, null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportController.exportFilms(null, null).getBody().writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(2, lines.length);
+        Film first = objectMapper.readValue(lines[0], Film.class);
+        assertEquals("Film Name 1", first.getName());
+        assertEquals(LongSet.of(1L), first.getLikes());
+        assertEquals("Film Name 2", objectMapper.readValue(lines[1], Film.class).getName());
+    }
+
+    @Test
+    protected void exportUsers_emptyStorage() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportController.exportUsers().getBody().writeTo(out);
+        assertEquals(0, out.size());
+
+        userStorage.create(new User(null, "email@example.com", "login", "name", LocalDate.parse("1990-01-01"), null));
+        exportController.exportUsers().getBody().writeTo(out);
+        assertEquals("login", objectMapper.readValue(out.toString(StandardCharsets.UTF_8).trim(), User.class).getLogin());
+    }
+
+    @Test
+    protected void exportFilms_readsCatalogInPages() throws Exception {
+        int total = ExportController.PAGE_SIZE * 2 + 5;
+        for (int i = 0; i < total; i++) {
+            filmStorage.create(new Film(null, "Film " + i, "Description", LocalDate.parse("2000-01-01"), 100, null));
+        }
+
+        String[] lines = export(exportController.exportFilms(null, null).getBody());
+        assertEquals(total, lines.length);
+        assertEquals("Film 0", objectMapper.readValue(lines[0], Film.class).getName());
+        assertEquals("Film " + (total - 1), objectMapper.readValue(lines[total - 1], Film.class).getName());
+
+        lines = export(exportController.exportFilmPage(ExportController.PAGE_SIZE + 2, 3).getBody());
+        assertEquals(ExportController.PAGE_SIZE + 2, lines.length);
+        assertEquals(4L, objectMapper.readValue(lines[0], Film.class).getId());
+        assertEquals(ExportController.PAGE_SIZE + 5L, objectMapper.readValue(lines[lines.length - 1], Film.class).getId());
+    }
+
+    @Test
+    protected void exportFilms_appliesReleaseDateFilter() throws Exception {
+        filmStorage.create(new Film(null, "Old", "Description", LocalDate.parse("1990-01-01"), 100, null));
+        filmStorage.create(new Film(null, "New", "Description", LocalDate.parse("2010-01-01"), 100, null));
+
+        String[] lines = export(exportController.exportFilms(LocalDate.parse("2000-01-01"), null).getBody());
+        assertEquals(1, lines.length);
+        assertEquals("New", objectMapper.readValue(lines[0], Film.class).getName());
+    }
+
+    @Test
+    protected void exportUsers_respectsLimitAndAfter() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            userStorage.create(new User(null, "user" + i + "@example.com", "login" + i, "name",
+                    LocalDate.parse("1990-01-01"), null));
+        }
+
+        String[] lines = export(exportController.exportUserPage(2, 2).getBody());
+        assertEquals(2, lines.length);
+        assertEquals("login2", objectMapper.readValue(lines[0], User.class).getLogin());
+        assertEquals("login3", objectMapper.readValue(lines[1], User.class).getLogin());
+    }
+
+    @Test
+    protected void exportFilmPage_selectedByAcceptHeaderWithLimit() throws Exception {
+        MvcResult result = mockMvc.perform(get("/films").param("limit", "1").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        mockMvc.perform(get("/users").param("limit", "0").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    protected void exportFilms_selectedByAcceptHeader() throws Exception {
+        MvcResult result = mockMvc.perform(get("/films").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        mockMvc.perform(get("/films").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/films").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    private String[] export(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8).split("\n");
+    }
+}
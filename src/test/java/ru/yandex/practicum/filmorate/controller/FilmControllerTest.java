@@ -1,33 +1,67 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
 import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 class FilmControllerTest {
 
     @Autowired
     private Validator validator;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
     private FilmController filmController;
     private InMemoryFilmStorage filmStorage;
     private InMemoryUserStorage userStorage;
@@ -36,8 +70,9 @@ class FilmControllerTest {
     @BeforeEach
     void setUp() {
         filmStorage = new InMemoryFilmStorage();
-        filmService = new FilmService(filmStorage, userStorage);
-        filmController = new FilmController(filmStorage, filmService);
+        filmService = new FilmService(filmStorage, userStorage, Optional.empty());
+        filmController = new FilmController(filmStorage, filmService,
+                new PopularFilmsCache(filmStorage, filmService, objectMapper, 64, 0));
     }
 
     @Test
@@ -113,10 +148,271 @@ class FilmControllerTest {
         filmController.createFilm(film1);
         filmController.createFilm(film2);
 
-        ResponseEntity<Collection<Film>> responseEntity = filmController.findAll();
+        ResponseEntity<Collection<Film>> responseEntity = filmController.findAll(null, null, webRequest());
         Collection<Film> films = responseEntity.getBody();
         assertNotNull(films, "Коллекция фильмов не должна быть null");
         assertEquals(2, films.size(), "Количество фильмов должно быть равно 2");
 
     }
-}
\ No newline at end of file
+
+    @Test
+    protected void findPage_success() {
+        for (int i = 0; i < 3; i++) {
+            filmController.createFilm(new Film(null, "Film Name " + i, "Description", LocalDate.parse("2000-01-01"), 120, null));
+        }
+
+        List<Film> firstPage = filmController.findPage(2, 0, webRequest()).getBody();
+        assertNotNull(firstPage);
+        assertEquals(2, firstPage.size());
+        List<Film> secondPage = filmController.findPage(2, firstPage.get(1).getId(), webRequest()).getBody();
+        assertNotNull(secondPage);
+        assertEquals(1, secondPage.size());
+        assertEquals("Film Name 2", secondPage.get(0).getName());
+    }
+
+    @Test
+    protected void findPage_routingAndValidation() throws Exception {
+        mockMvc.perform(get("/films").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(lessThanOrEqualTo(1)));
+        mockMvc.perform(get("/films").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    protected void createFilms_batchEndpoint() throws Exception {
+        String body = "[{\"name\":\"Batch Film\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90},"
+                + "{\"name\":\"\",\"releaseDate\":\"2000-01-01\",\"duration\":90}]";
+        mockMvc.perform(post("/films/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].id").isNumber())
+                .andExpect(jsonPath("$[1].status").value(400));
+    }
+
+    @Test
+    protected void patchFilm_changesOnlyGivenFields() {
+        Film createdFilm = filmController.createFilm(
+                new Film(null, "Film Name", "Description", LocalDate.parse("2000-01-01"), 120, null)).getBody();
+        filmStorage.addLike(createdFilm.getId(), 1L);
+
+        Film patchedFilm = filmController.patchFilm(new FilmPatch(createdFilm.getId(), null, "New Description", null, 90))
+                .getBody();
+
+        assertEquals("Film Name", patchedFilm.getName());
+        assertEquals("New Description", patchedFilm.getDescription());
+        assertEquals(LocalDate.parse("2000-01-01"), patchedFilm.getReleaseDate());
+        assertEquals(90, patchedFilm.getDuration());
+        assertEquals(LongSet.of(1L), patchedFilm.getLikes());
+        assertSame(patchedFilm, filmStorage.findById(createdFilm.getId()));
+    }
+
+    @Test
+    protected void patchFilm_validatesChangedFields() {
+        Film createdFilm = filmController.createFilm(
+                new Film(null, "Film Name", "Description", LocalDate.parse("2000-01-01"), 120, null)).getBody();
+
+        assertThrows(ConstraintViolationException.class,
+                () -> filmController.patchFilm(new FilmPatch(createdFilm.getId(), " ", null, null, null)));
+        assertThrows(ValidationException.class, () -> filmController.patchFilm(
+                new FilmPatch(createdFilm.getId(), null, null, LocalDate.parse("1800-01-01"), null)));
+        assertThrows(NotFoundException.class, () -> filmController.patchFilm(new FilmPatch(999L, "Name", null, null, null)));
+        assertEquals("Film Name", filmStorage.findById(createdFilm.getId()).getName());
+    }
+
+    @Test
+    protected void patchFilm_overHttp() throws Exception {
+        String created = mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Film\",\"description\":\"Description\",\"releaseDate\":\"2000-01-01\",\"duration\":120}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = JsonPath.parse(created).read("$.id", Long.class);
+
+        mockMvc.perform(patch("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":" + id + ",\"duration\":-1}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":" + id + ",\"name\":\"Renamed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed"))
+                .andExpect(jsonPath("$.duration").value(120));
+    }
+
+    @Test
+    protected void popular_conditionalGet() throws Exception {
+        String created = mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Film\",\"description\":\"Description\",\"releaseDate\":\"2000-01-01\",\"duration\":120}"))
+                .andReturn().getResponse().getContentAsString();
+        long filmId = JsonPath.parse(created).read("$.id", Long.class);
+        String user = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"etag@example.com\",\"login\":\"etag\",\"birthday\":\"1990-01-01\"}"))
+                .andReturn().getResponse().getContentAsString();
+        long userId = JsonPath.parse(user).read("$.id", Long.class);
+
+        String etag = mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/films/" + filmId + "/like/" + userId)).andExpect(status().isOk());
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    protected void popular_staleEntryKeepsItsOwnETag() throws Exception {
+        FilmService service = new FilmService(filmStorage, new InMemoryUserStorage(), Optional.empty());
+        PopularFilmsCache cache = new PopularFilmsCache(filmStorage, service, objectMapper, 8, 60_000);
+        MockMvc staleMvc = MockMvcBuilders.standaloneSetup(new FilmController(filmStorage, service, cache)).build();
+        Film film = filmStorage.create(new Film(null, "Film", "Description", LocalDate.parse("2000-01-01"), 120, null));
+
+        String etag = staleMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        filmStorage.addLike(film.getId(), 1L);
+
+        // в окне устаревания отдается старый список с тегом его версии, а не текущей версии каталога
+        staleMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(jsonPath("$[0].likes").isEmpty());
+        staleMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        staleMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    protected void popular_currentETagAnsweredWithoutCache() throws Exception {
+        FilmService service = new FilmService(filmStorage, new InMemoryUserStorage(), Optional.empty());
+        AtomicInteger lookups = new AtomicInteger();
+        PopularFilmsCache cache = new PopularFilmsCache(filmStorage, service, objectMapper, 8, 60_000) {
+            @Override
+            public Cached get(int count, Integer genreId, Integer mpaId, Integer year) {
+                lookups.incrementAndGet();
+                return super.get(count, genreId, mpaId, year);
+            }
+        };
+        MockMvc countingMvc = MockMvcBuilders.standaloneSetup(new FilmController(filmStorage, service, cache)).build();
+        filmStorage.create(new Film(null, "Film", "Description", LocalDate.parse("2000-01-01"), 120, null));
+        String current = ETags.of("popular", filmStorage.version());
+
+        countingMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + current))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, current));
+        assertEquals(0, lookups.get());
+
+        countingMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, ETags.of("popular", 0)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, current));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    protected void searchFilms_endpoint() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Searchable Film\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":120}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/films/search").param("q", "SEARCHAB"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Searchable Film"));
+        mockMvc.perform(get("/films/search"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/films/search").param("q", "film").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    protected void releaseDateQueries_endpoint() throws Exception {
+        for (String date : List.of("1931-03-01", "1931-11-20", "1932-01-01")) {
+            mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"Film " + date + "\",\"description\":\"d\",\"releaseDate\":\"" + date
+                                    + "\",\"duration\":90}"))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/films").param("releasedFrom", "1931-06-01").param("releasedTo", "1932-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].releaseDate").value("1931-11-20"))
+                .andExpect(jsonPath("$[1].releaseDate").value("1932-01-01"));
+        mockMvc.perform(get("/films/popular").param("year", "1931"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/films").param("releasedFrom", "not-a-date"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("year", "1200"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    protected void genresAndMpa_endpoints() throws Exception {
+        mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6))
+                .andExpect(jsonPath("$[0].name").value("Комедия"));
+        mockMvc.perform(get("/mpa/3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("PG-13"));
+        mockMvc.perform(get("/genres/99")).andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Categorized\",\"description\":\"d\",\"releaseDate\":\"1941-05-01\","
+                                + "\"duration\":90,\"mpa\":{\"id\":5},\"genres\":[{\"id\":6},{\"id\":5}]}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.mpa.name").value("NC-17"))
+                .andExpect(jsonPath("$.genres[0].name").value("Документальный"));
+        mockMvc.perform(get("/films/popular").param("genreId", "6").param("mpaId", "5").param("year", "1941"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Categorized"));
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Film\",\"releaseDate\":\"2000-01-01\",\"duration\":90,\"mpa\":{\"id\":99}}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    protected void deletes_cascadeThroughEndpoints() throws Exception {
+        String created = mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Ephemeral\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90}"))
+                .andReturn().getResponse().getContentAsString();
+        long filmId = JsonPath.parse(created).read("$.id", Long.class);
+        String user = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"deleted@example.com\",\"login\":\"deleted\",\"birthday\":\"1990-01-01\"}"))
+                .andReturn().getResponse().getContentAsString();
+        long userId = JsonPath.parse(user).read("$.id", Long.class);
+        mockMvc.perform(put("/films/" + filmId + "/like/" + userId)).andExpect(status().isOk());
+        mockMvc.perform(get("/users/" + userId + "/likes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(filmId));
+
+        mockMvc.perform(delete("/users/" + userId)).andExpect(status().isNoContent());
+        mockMvc.perform(get("/users/" + userId + "/likes")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/films/search").param("q", "ephemeral"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].likes.length()").value(0));
+
+        mockMvc.perform(delete("/films/" + filmId)).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/films/" + filmId)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/films/search").param("q", "ephemeral"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(delete("/films/batch").contentType(MediaType.APPLICATION_JSON).content("[" + filmId + ",null]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(404))
+                .andExpect(jsonPath("$[1].status").value(400));
+    }
+
+    private static WebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+}
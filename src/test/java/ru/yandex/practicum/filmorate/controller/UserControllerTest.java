@@ -5,15 +5,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.time.LocalDate;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,7 +36,7 @@ class UserControllerTest {
     @BeforeEach
     protected void setUp() {
         userStorage = new InMemoryUserStorage();
-        userService = new UserService(userStorage);
+        userService = new UserService(userStorage, new InMemoryFilmStorage(), Optional.empty());
         userController = new UserController(userStorage, userService);
     }
 
@@ -119,8 +127,8 @@ class UserControllerTest {
     @Test
     protected void addFriend_success() {
         // Создание пользователей с инициализацией множества друзей
-        User user1 = new User(null, "email1@example.com", "login1", "name1", LocalDate.parse("1990-01-01"), new HashSet<>());
-        User user2 = new User(null, "email2@example.com", "login2", "name2", LocalDate.parse("1991-01-01"), new HashSet<>());
+        User user1 = new User(null, "email1@example.com", "login1", "name1", LocalDate.parse("1990-01-01"), new LongSet());
+        User user2 = new User(null, "email2@example.com", "login2", "name2", LocalDate.parse("1991-01-01"), new LongSet());
 
         user1 = userController.createUser(user1).getBody();
         user2 = userController.createUser(user2).getBody();
@@ -146,8 +154,8 @@ class UserControllerTest {
     @Test
     protected void removeFriend_success() {
         // Создание пользователей с инициализацией множества друзей
-        User user1 = new User(null, "email1@example.com", "login1", "name1", LocalDate.parse("1990-01-01"), new HashSet<>());
-        User user2 = new User(null, "email2@example.com", "login2", "name2", LocalDate.parse("1991-01-01"), new HashSet<>());
+        User user1 = new User(null, "email1@example.com", "login1", "name1", LocalDate.parse("1990-01-01"), new LongSet());
+        User user2 = new User(null, "email2@example.com", "login2", "name2", LocalDate.parse("1991-01-01"), new LongSet());
 
         // Сохранение пользователей
         user1 = userController.createUser(user1).getBody();
@@ -176,4 +184,73 @@ class UserControllerTest {
     }
 
 
+
+    @Test
+    protected void patchUser_changesOnlyGivenFields() {
+        User createdUser = userController.createUser(
+                new User(null, "email@example.com", "login", "name", LocalDate.parse("1990-01-01"), null)).getBody();
+        User friend = userController.createUser(
+                new User(null, "friend@example.com", "friend", "friend", LocalDate.parse("1990-01-01"), null)).getBody();
+        userService.addFriend(createdUser.getId(), friend.getId());
+
+        User patchedUser = userController.patchUser(new UserPatch(createdUser.getId(), "new@example.com", null, null, null))
+                .getBody();
+
+        assertEquals("new@example.com", patchedUser.getEmail());
+        assertEquals("login", patchedUser.getLogin());
+        assertEquals("name", patchedUser.getName());
+        assertEquals(LocalDate.parse("1990-01-01"), patchedUser.getBirthday());
+        assertEquals(LongSet.of(friend.getId()), patchedUser.getFriends());
+    }
+
+    @Test
+    protected void patchUser_blankNameFallsBackToLogin() {
+        User createdUser = userController.createUser(
+                new User(null, "email@example.com", "login", "name", LocalDate.parse("1990-01-01"), null)).getBody();
+
+        User patchedUser = userController.patchUser(new UserPatch(createdUser.getId(), null, "newLogin", "", null))
+                .getBody();
+
+        assertEquals("newLogin", patchedUser.getName());
+    }
+
+    @Test
+    protected void patchUser_validatesChangedFields() {
+        User createdUser = userController.createUser(
+                new User(null, "email@example.com", "login", "name", LocalDate.parse("1990-01-01"), null)).getBody();
+
+        ConstraintViolationException exception = assertThrows(ConstraintViolationException.class,
+                () -> userController.patchUser(new UserPatch(createdUser.getId(), null, "bad login", null, null)));
+        assertTrue(exception.getMessage().contains("Логин не должен содержать пробелы"));
+        assertThrows(NotFoundException.class,
+                () -> userController.patchUser(new UserPatch(999L, "new@example.com", null, null, null)));
+        assertEquals("login", userStorage.findById(createdUser.getId()).getLogin());
+    }
+
+    @Test
+    protected void getFriends_conditionalGet() {
+        User user = userController.createUser(
+                new User(null, "user@example.com", "user", "user", LocalDate.parse("1990-01-01"), null)).getBody();
+        User friend = userController.createUser(
+                new User(null, "friend@example.com", "friend", "friend", LocalDate.parse("1990-01-01"), null)).getBody();
+        userController.addFriend(user.getId(), friend.getId());
+
+        MockHttpServletRequest plain = new MockHttpServletRequest("GET", "/users/" + user.getId() + "/friends");
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertNotNull(userController.getFriends(user.getId(), new ServletWebRequest(plain, first)));
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/users/" + user.getId() + "/friends");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        assertNull(userController.getFriends(user.getId(), new ServletWebRequest(conditional, notModified)));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), notModified.getStatus());
+
+        userController.patchUser(new UserPatch(friend.getId(), null, null, "renamed", null));
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        assertNotNull(userController.getFriends(user.getId(), new ServletWebRequest(conditional, changed)));
+        assertEquals(HttpStatus.OK.value(), changed.getStatus());
+        assertNotEquals(etag, changed.getHeader(HttpHeaders.ETAG));
+    }
 }
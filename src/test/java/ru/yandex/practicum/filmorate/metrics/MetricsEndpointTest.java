@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    protected void prometheus_exposesServiceStorageAndSizeMetrics() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Film\",\"description\":\"Description\",\"releaseDate\":\"2000-01-01\",\"duration\":120}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"user@example.com\",\"login\":\"user\",\"birthday\":\"1990-01-01\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+
+        String body = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.contains("filmorate_service_seconds_count{application=\"filmorate\",class=\"ru.yandex.practicum.filmorate.service.FilmService\",exception=\"none\",method=\"addLike\""), body);
+        assertTrue(body.contains("filmorate_storage_seconds_count{application=\"filmorate\",exception=\"none\",method=\"addLike\",storage=\"InMemoryFilmStorage\""), body);
+        assertTrue(body.contains("filmorate_films{"), body);
+        assertTrue(body.contains("filmorate_likes{"), body);
+        assertTrue(body.contains("filmorate_users{"), body);
+        assertTrue(body.contains("filmorate_friend_links{"), body);
+    }
+}
@@ -4,15 +4,25 @@ import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,12 +36,12 @@ public class FilmServiceTest {
     protected void setUp() {
         filmStorage = new InMemoryFilmStorage();
         userStorage = new InMemoryUserStorage();
-        filmService = new FilmService(filmStorage, userStorage);  // передаем оба хранилища
+        filmService = new FilmService(filmStorage, userStorage, Optional.empty());  // передаем оба хранилища
     }
 
     @Test
     protected void testAddLikeSuccess() {
-        Film film = new Film(null, "Film Name", "Description", LocalDate.parse("2000-01-01"), 120, new HashSet<>());
+        Film film = new Film(null, "Film Name", "Description", LocalDate.parse("2000-01-01"), 120, new LongSet());
         Film createdFilm = filmStorage.create(film);
 
         // Create a valid user
@@ -53,7 +63,7 @@ public class FilmServiceTest {
 
     @Test
     protected void rtestRemoveLikeSuccess() {
-        Film film = new Film(null, "Film Name", "Description", LocalDate.parse("2000-01-01"), 120, new HashSet<>());
+        Film film = new Film(null, "Film Name", "Description", LocalDate.parse("2000-01-01"), 120, new LongSet());
         Film createdFilm = filmStorage.create(film);
 
         // Create a valid user
@@ -76,8 +86,8 @@ public class FilmServiceTest {
 
     @Test
     protected void testGetMostPopularFilms() {
-        Film film1 = new Film(null, "Film Name 1", "Description 1", LocalDate.parse("2000-01-01"), 120, new HashSet<>());
-        Film film2 = new Film(null, "Film Name 2", "Description 2", LocalDate.parse("2000-01-01"), 130, new HashSet<>());
+        Film film1 = new Film(null, "Film Name 1", "Description 1", LocalDate.parse("2000-01-01"), 120, new LongSet());
+        Film film2 = new Film(null, "Film Name 2", "Description 2", LocalDate.parse("2000-01-01"), 130, new LongSet());
         Film createdFilm1 = filmStorage.create(film1);
         Film createdFilm2 = filmStorage.create(film2);
 
@@ -95,6 +105,195 @@ public class FilmServiceTest {
         assertEquals(createdFilm2.getId(), popularFilms.get(0).getId());
     }
 
+    @Test
+    protected void testGetMostPopularFilmsMatchesFullSort() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            films.add(filmStorage.create(new Film(null, "Film " + i, "Description", LocalDate.parse("2000-01-01"), 100, new LongSet())));
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = new User(null, "user" + i + "@example.com", "user" + i, "User " + i, LocalDate.parse("1990-01-01"), new LongSet());
+            users.add(userStorage.create(user));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 60; i++) {
+            Film film = films.get(random.nextInt(films.size()));
+            User user = users.get(random.nextInt(users.size()));
+            if (random.nextInt(4) == 0) {
+                filmService.removeLike(film.getId(), user.getId());
+            } else {
+                filmService.addLike(film.getId(), user.getId());
+            }
+        }
+
+        List<Long> expected = filmStorage.findAll().stream()
+                .sorted(Comparator.comparingInt((Film film) -> -film.getLikes().size())
+                        .thenComparingLong(Film::getId))
+                .map(Film::getId)
+                .collect(Collectors.toList());
+        for (int count : new int[]{0, 1, 5, 20, 50}) {
+            List<Long> actual = filmService.getMostPopularFilms(count).stream()
+                    .map(Film::getId)
+                    .collect(Collectors.toList());
+            assertEquals(expected.subList(0, Math.min(count, expected.size())), actual);
+        }
+    }
+
+    @Test
+    protected void testGetMostPopularFilmsTiesOrderedById() {
+        Film film1 = filmStorage.create(new Film(null, "Film 1", "Description", LocalDate.parse("2000-01-01"), 100, new LongSet()));
+        Film film2 = filmStorage.create(new Film(null, "Film 2", "Description", LocalDate.parse("2000-01-01"), 100, new LongSet()));
+        Film film3 = filmStorage.create(new Film(null, "Film 3", "Description", LocalDate.parse("2000-01-01"), 100, new LongSet()));
+        User user = userStorage.create(new User(null, "user@example.com", "user", "User", LocalDate.parse("1990-01-01"), new LongSet()));
+
+        filmService.addLike(film3.getId(), user.getId());
+        List<Film> popularFilms = filmService.getMostPopularFilms(3);
+        assertEquals(List.of(film3.getId(), film1.getId(), film2.getId()),
+                popularFilms.stream().map(Film::getId).collect(Collectors.toList()));
+
+        filmService.removeLike(film3.getId(), user.getId());
+        popularFilms = filmService.getMostPopularFilms(3);
+        assertEquals(List.of(film1.getId(), film2.getId(), film3.getId()),
+                popularFilms.stream().map(Film::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    protected void testCreateFilmsReturnsPerItemResults() {
+        List<Film> films = Arrays.asList(
+                new Film(null, "Film 1", "Description", LocalDate.parse("2000-01-01"), 100, null),
+                new Film(null, "", "Description", LocalDate.parse("2000-01-01"), 100, null),
+                null,
+                new Film(null, "Film 4", "Description", LocalDate.parse("1800-01-01"), 100, null),
+                new Film(null, "Film 5", "Description", LocalDate.parse("2000-01-01"), 100, null));
+
+        List<BatchResult> results = filmService.createFilms(films);
+
+        assertEquals(List.of(201, 400, 400, 400, 201), results.stream().map(BatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals("Название не может быть пустым", results.get(1).getError());
+        assertEquals("Дата релиза не может быть раньше 28 декабря 1895 года", results.get(3).getError());
+        assertEquals(2, filmStorage.findAll().size());
+        assertEquals("Film 5", filmStorage.findById(results.get(4).getId()).getName());
+    }
+
+    @Test
+    protected void testCreateFilmsReportsUnknownCategoriesPerItem() {
+        Film valid = new Film(null, "Film 1", "Description", LocalDate.parse("2000-01-01"), 100, null);
+        valid.setMpa(new Mpa(1, null));
+        Film unknownMpa = new Film(null, "Film 2", "Description", LocalDate.parse("2000-01-01"), 100, null);
+        unknownMpa.setMpa(new Mpa(99, null));
+        Film unknownGenre = new Film(null, "Film 3", "Description", LocalDate.parse("2000-01-01"), 100, null);
+        unknownGenre.setGenres(List.of(new Genre(99, null)));
+
+        List<BatchResult> results = filmService.createFilms(List.of(valid, unknownMpa, unknownGenre));
+
+        assertEquals(List.of(201, 404, 404), results.stream().map(BatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals("Рейтинг MPA не найден", results.get(1).getError());
+        assertEquals("Жанр не найден", results.get(2).getError());
+        assertEquals(List.of("Film 1"), filmStorage.findAll().stream().map(Film::getName).collect(Collectors.toList()));
+        assertEquals("G", filmStorage.findById(results.get(0).getId()).getMpa().getName());
+    }
+
+    @Test
+    protected void testAddLikesAppliesValidItems() {
+        Film film1 = filmStorage.create(new Film(null, "Film 1", "Description", LocalDate.parse("2000-01-01"), 100, null));
+        Film film2 = filmStorage.create(new Film(null, "Film 2", "Description", LocalDate.parse("2000-01-01"), 100, null));
+        User user1 = userStorage.create(new User(null, "user1@example.com", "user1", "User 1", LocalDate.parse("1990-01-01"), null));
+        User user2 = userStorage.create(new User(null, "user2@example.com", "user2", "User 2", LocalDate.parse("1990-01-01"), null));
+
+        List<BatchResult> results = filmService.addLikes(Arrays.asList(
+                new Like(film1.getId(), user1.getId()),
+                new Like(film1.getId(), user2.getId()),
+                new Like(film2.getId(), user1.getId()),
+                new Like(film1.getId(), user1.getId()),
+                new Like(999L, user1.getId()),
+                new Like(film2.getId(), 999L)));
+
+        assertEquals(List.of(200, 200, 200, 200, 404, 404), results.stream().map(BatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals(LongSet.of(user1.getId(), user2.getId()), film1.getLikes());
+        assertEquals(LongSet.of(user1.getId()), film2.getLikes());
+        assertEquals(film1.getId(), filmService.getMostPopularFilms(1).get(0).getId());
+    }
+
+    @Test
+    protected void testGetRecommendedFilmsFromSimilarUsers() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            films.add(filmStorage.create(new Film(null, "Film " + i, "Description", LocalDate.parse("2000-01-01"), 100, null)));
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(userStorage.create(new User(null, "user" + i + "@example.com", "user" + i, "User " + i,
+                    LocalDate.parse("1990-01-01"), null)));
+        }
+        // user0 и user1 совпадают по двум фильмам, user0 и user2 — по одному
+        filmService.addLike(films.get(0).getId(), users.get(0).getId());
+        filmService.addLike(films.get(1).getId(), users.get(0).getId());
+        filmService.addLike(films.get(0).getId(), users.get(1).getId());
+        filmService.addLike(films.get(1).getId(), users.get(1).getId());
+        filmService.addLike(films.get(2).getId(), users.get(1).getId());
+        filmService.addLike(films.get(0).getId(), users.get(2).getId());
+        filmService.addLike(films.get(3).getId(), users.get(2).getId());
+
+        long userId = users.get(0).getId();
+        assertEquals(List.of(films.get(2).getId(), films.get(3).getId()), recommendedIds(userId, 10));
+        assertEquals(List.of(films.get(2).getId()), recommendedIds(userId, 1));
+
+        // собственный лайк сразу сбрасывает кеш: понравившийся фильм пропадает из рекомендаций
+        filmService.addLike(films.get(2).getId(), userId);
+        assertEquals(List.of(films.get(3).getId()), recommendedIds(userId, 10));
+
+        assertThrows(NotFoundException.class, () -> filmService.getRecommendedFilms(999L, 10));
+    }
+
+    @Test
+    protected void testGetLikedFilmsPagesByFilmId() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            films.add(filmStorage.create(new Film(null, "Film " + i, "Description", LocalDate.parse("2000-01-01"), 100, null)));
+        }
+        User user = userStorage.create(new User(null, "liker@example.com", "liker", "Liker",
+                LocalDate.parse("1990-01-01"), null));
+        filmService.addLike(films.get(2).getId(), user.getId());
+        filmService.addLike(films.get(0).getId(), user.getId());
+
+        assertEquals(List.of(films.get(0), films.get(2)), filmService.getLikedFilms(user.getId(), 0, 10));
+        assertEquals(List.of(films.get(2)), filmService.getLikedFilms(user.getId(), films.get(0).getId(), 10));
+
+        filmService.removeLike(films.get(0).getId(), user.getId());
+        assertEquals(List.of(films.get(2)), filmService.getLikedFilms(user.getId(), 0, 10));
+        assertThrows(NotFoundException.class, () -> filmService.getLikedFilms(999L, 0, 10));
+    }
+
+    @Test
+    protected void testLikeWrittenAfterUserDeleteIsRemoved() {
+        User user = userStorage.create(new User(null, "late@example.com", "late", "Late", LocalDate.parse("1990-01-01"), null));
+        User keeper = userStorage.create(new User(null, "keeper@example.com", "keeper", "Keeper", LocalDate.parse("1990-01-01"), null));
+        UserService[] userService = new UserService[1];
+        // удаление со всем каскадом проходит между проверкой пользователя в addLike и записью лайка
+        InMemoryFilmStorage racingStorage = new InMemoryFilmStorage() {
+            @Override
+            public void addLike(long filmId, long userId) {
+                userService[0].deleteUser(userId);
+                super.addLike(filmId, userId);
+            }
+        };
+        userService[0] = new UserService(userStorage, racingStorage, Optional.empty());
+        Film film = racingStorage.create(new Film(null, "Film", "Description", LocalDate.parse("2000-01-01"), 100, null));
+        Film other = racingStorage.create(new Film(null, "Other", "Description", LocalDate.parse("2000-01-01"), 100, null));
+        racingStorage.addLikes(other.getId(), LongSet.of(keeper.getId()));
+        FilmService racingService = new FilmService(racingStorage, userStorage, Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> racingService.addLike(film.getId(), user.getId()));
+
+        assertNull(userStorage.findById(user.getId()));
+        assertTrue(film.getLikes().isEmpty());
+        assertEquals(1, racingStorage.countLikes());
+        assertTrue(racingStorage.findLikedBy(user.getId(), 0, 10).isEmpty());
+        assertEquals(List.of(other.getId(), film.getId()),
+                racingStorage.findPopular(2).stream().map(Film::getId).collect(Collectors.toList()));
+    }
+
     @Test
     protected void testCreateUserInvalidLogin() {
         User user = new User();
@@ -106,5 +305,7 @@ public class FilmServiceTest {
         assertThrows(ConstraintViolationException.class, () -> userStorage.create(user));
     }
 
-
+    private List<Long> recommendedIds(long userId, int limit) {
+        return filmService.getRecommendedFilms(userId, limit).stream().map(Film::getId).collect(Collectors.toList());
+    }
 }
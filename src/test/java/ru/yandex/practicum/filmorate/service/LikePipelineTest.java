@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LikePipelineTest {
+
+    private final BlockingFilmStorage filmStorage = new BlockingFilmStorage();
+    private LikePipeline pipeline;
+
+    @AfterEach
+    protected void tearDown() {
+        filmStorage.release.countDown();
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    protected void testCoalescesEventsPerFilm() throws InterruptedException {
+        Film blocker = filmStorage.create(newFilm());
+        Film film = filmStorage.create(newFilm());
+        filmStorage.addLike(film.getId(), 7L);
+        filmStorage.blockedFilmId = blocker.getId();
+        pipeline = new LikePipeline(filmStorage, 100, 100, LikePipeline.Backpressure.BLOCK, 100, 5_000);
+        Set<Long> notified = ConcurrentHashMap.newKeySet();
+        pipeline.onUserLikesChanged(notified::add);
+
+        pipeline.submit(blocker.getId(), 100L, true);
+        assertTrue(filmStorage.entered.await(5, TimeUnit.SECONDS));
+        pipeline.submit(film.getId(), 1L, true);
+        pipeline.submit(film.getId(), 2L, true);
+        pipeline.submit(film.getId(), 2L, false);
+        pipeline.submit(film.getId(), 7L, false);
+        pipeline.submit(film.getId(), 3L, true);
+        int callsBefore = filmStorage.calls.get();
+        filmStorage.release.countDown();
+        pipeline.flush();
+
+        assertEquals(Set.of(1L, 3L), Set.copyOf(film.getLikes()));
+        assertTrue(blocker.getLikes().contains(100L));
+        assertEquals(Set.of(1L, 2L, 3L, 7L, 100L), notified);
+        // пять событий одного фильма применяются двумя вызовами: снятие и добавление лайков
+        assertEquals(2, filmStorage.calls.get() - callsBefore);
+    }
+
+    @Test
+    protected void testCloseAppliesAcceptedEvents() {
+        Film film = filmStorage.create(newFilm());
+        pipeline = new LikePipeline(filmStorage, 10_000, 16, LikePipeline.Backpressure.BLOCK, 1_000, 5_000);
+
+        for (long userId = 1; userId <= 1_000; userId++) {
+            pipeline.submit(film.getId(), userId, true);
+        }
+        pipeline.close();
+
+        assertEquals(1_000, film.getLikes().size());
+        assertEquals(film.getId(), filmStorage.findPopular(1).get(0).getId());
+        assertThrows(OverloadedException.class, () -> pipeline.submit(film.getId(), 1_001L, true));
+    }
+
+    @Test
+    protected void testRejectsWhenQueueIsFull() throws InterruptedException {
+        Film blocker = filmStorage.create(newFilm());
+        Film film = filmStorage.create(newFilm());
+        filmStorage.blockedFilmId = blocker.getId();
+        pipeline = new LikePipeline(filmStorage, 2, 1, LikePipeline.Backpressure.REJECT, 0, 5_000);
+
+        pipeline.submit(blocker.getId(), 1L, true);
+        assertTrue(filmStorage.entered.await(5, TimeUnit.SECONDS));
+        pipeline.submit(film.getId(), 2L, true);
+        pipeline.submit(film.getId(), 3L, true);
+        assertThrows(OverloadedException.class, () -> pipeline.submit(film.getId(), 4L, true));
+
+        filmStorage.release.countDown();
+        pipeline.flush();
+        assertEquals(Set.of(2L, 3L), Set.copyOf(film.getLikes()));
+    }
+
+    @Test
+    protected void testBlockWaitsForFreeSpace() throws InterruptedException {
+        Film blocker = filmStorage.create(newFilm());
+        Film film = filmStorage.create(newFilm());
+        filmStorage.blockedFilmId = blocker.getId();
+        pipeline = new LikePipeline(filmStorage, 1, 1, LikePipeline.Backpressure.BLOCK, 50, 5_000);
+
+        pipeline.submit(blocker.getId(), 1L, true);
+        assertTrue(filmStorage.entered.await(5, TimeUnit.SECONDS));
+        pipeline.submit(film.getId(), 2L, true);
+        assertThrows(OverloadedException.class, () -> pipeline.submit(film.getId(), 3L, true));
+
+        filmStorage.release.countDown();
+        pipeline.submit(film.getId(), 3L, true);
+        pipeline.flush();
+        assertEquals(Set.of(2L, 3L), Set.copyOf(film.getLikes()));
+    }
+
+    @Test
+    protected void testFlushGivesUpAfterTimeout() throws InterruptedException {
+        Film blocker = filmStorage.create(newFilm());
+        filmStorage.blockedFilmId = blocker.getId();
+        pipeline = new LikePipeline(filmStorage, 10, 1, LikePipeline.Backpressure.BLOCK, 50, 50);
+
+        pipeline.submit(blocker.getId(), 1L, true);
+        assertTrue(filmStorage.entered.await(5, TimeUnit.SECONDS));
+        assertThrows(OverloadedException.class, () -> pipeline.flush());
+
+        filmStorage.release.countDown();
+        pipeline.flush();
+        assertTrue(blocker.getLikes().contains(1L));
+    }
+
+    @Test
+    protected void testFailsFastWhenWorkerStopped() throws InterruptedException {
+        Film blocker = filmStorage.create(newFilm());
+        Film film = filmStorage.create(newFilm());
+        filmStorage.blockedFilmId = blocker.getId();
+        pipeline = new LikePipeline(filmStorage, 10, 1, LikePipeline.Backpressure.BLOCK, 50, 60_000);
+
+        pipeline.submit(blocker.getId(), 1L, true);
+        assertTrue(filmStorage.entered.await(5, TimeUnit.SECONDS));
+        pipeline.submit(film.getId(), 2L, true);
+        filmStorage.blockedThread.interrupt();
+
+        long started = System.nanoTime();
+        assertThrows(OverloadedException.class, () -> pipeline.flush());
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(30));
+        assertThrows(OverloadedException.class, () -> pipeline.submit(film.getId(), 3L, true));
+    }
+
+    private static Film newFilm() {
+        return new Film(null, "Film", "Description", LocalDate.parse("2000-01-01"), 120, new LongSet());
+    }
+
+    private static class BlockingFilmStorage extends InMemoryFilmStorage {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile long blockedFilmId = -1;
+        private volatile Thread blockedThread;
+
+        @Override
+        public void addLikes(long filmId, LongSet userIds) {
+            calls.incrementAndGet();
+            if (filmId == blockedFilmId) {
+                blockedThread = Thread.currentThread();
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.addLikes(filmId, userIds);
+        }
+
+        @Override
+        public void removeLikes(long filmId, LongSet userIds) {
+            calls.incrementAndGet();
+            super.removeLikes(filmId, userIds);
+        }
+    }
+}
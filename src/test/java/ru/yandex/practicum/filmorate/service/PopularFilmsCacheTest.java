@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PopularFilmsCacheTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final CountingFilmStorage filmStorage = new CountingFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final FilmService filmService = new FilmService(filmStorage, userStorage, Optional.empty());
+
+    @AfterEach
+    protected void tearDown() {
+        filmStorage.release.countDown();
+    }
+
+    @Test
+    protected void testServesJsonUntilCatalogChanges() {
+        Film film = filmStorage.create(newFilm("Popular"));
+        User user = userStorage.create(new User(null, "user@example.com", "user", "user", LocalDate.parse("1990-01-01"), null));
+        PopularFilmsCache cache = new PopularFilmsCache(filmStorage, filmService, objectMapper, 8, 0);
+
+        String json = new String(cache.get(10, null, null, null).json(), StandardCharsets.UTF_8);
+        cache.get(10, null, null, null);
+        assertEquals(1, filmStorage.calls.get());
+        assertTrue(json.contains("\"name\":\"Popular\""));
+        assertTrue(json.contains("\"releaseDate\":\"2000-01-01\""));
+
+        filmService.addLike(film.getId(), user.getId());
+        assertTrue(new String(cache.get(10, null, null, null).json(), StandardCharsets.UTF_8).contains("\"likes\":[" + user.getId() + "]"));
+        assertEquals(2, filmStorage.calls.get());
+    }
+
+    @Test
+    protected void testStalenessWindowKeepsEntryAfterChanges() {
+        Film film = filmStorage.create(newFilm("Film"));
+        PopularFilmsCache cache = new PopularFilmsCache(filmStorage, filmService, objectMapper, 8, 60_000);
+
+        PopularFilmsCache.Cached first = cache.get(10, null, null, null);
+        filmStorage.addLike(film.getId(), 1L);
+        PopularFilmsCache.Cached second = cache.get(10, null, null, null);
+
+        assertEquals(1, filmStorage.calls.get());
+        // устаревшая запись отдается со своей версией, а не с текущей версией каталога
+        assertEquals(first.version(), second.version());
+        assertNotEquals(filmStorage.version(), second.version());
+    }
+
+    @Test
+    protected void testEvictsLeastRecentlyUsedCount() {
+        filmStorage.create(newFilm("Film"));
+        PopularFilmsCache cache = new PopularFilmsCache(filmStorage, filmService, objectMapper, 2, 0);
+
+        cache.get(1, null, null, null);
+        cache.get(2, null, null, null);
+        cache.get(1, null, null, null);
+        cache.get(3, null, null, null);
+        cache.get(1, null, null, null);
+        assertEquals(3, filmStorage.calls.get());
+        cache.get(2, null, null, null);
+        assertEquals(4, filmStorage.calls.get());
+    }
+
+    @Test
+    protected void testCoalescesConcurrentMisses() throws Exception {
+        filmStorage.create(newFilm("Film"));
+        filmStorage.blocking = true;
+        PopularFilmsCache cache = new PopularFilmsCache(filmStorage, filmService, objectMapper, 8, 0);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<PopularFilmsCache.Cached>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> cache.get(10, null, null, null)));
+            }
+            assertTrue(filmStorage.entered.await(5, TimeUnit.SECONDS));
+            filmStorage.release.countDown();
+
+            byte[] first = results.get(0).get(5, TimeUnit.SECONDS).json();
+            for (Future<PopularFilmsCache.Cached> result : results) {
+                assertArrayEquals(first, result.get(5, TimeUnit.SECONDS).json());
+            }
+            assertEquals(1, filmStorage.calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    protected void testFailedComputationIsNotCached() {
+        filmStorage.create(newFilm("Film"));
+        filmStorage.failing = true;
+        PopularFilmsCache cache = new PopularFilmsCache(filmStorage, filmService, objectMapper, 8, 0);
+
+        assertThrows(IllegalStateException.class, () -> cache.get(10, null, null, null));
+        filmStorage.failing = false;
+        assertNotNull(cache.get(10, null, null, null));
+        assertEquals(2, filmStorage.calls.get());
+    }
+
+    private static Film newFilm(String name) {
+        return new Film(null, name, "Description", LocalDate.parse("2000-01-01"), 120, null);
+    }
+
+    private static class CountingFilmStorage extends InMemoryFilmStorage {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean blocking;
+        private volatile boolean failing;
+
+        @Override
+        public List<Film> findPopular(int count) {
+            calls.incrementAndGet();
+            if (failing) {
+                throw new IllegalStateException("Хранилище недоступно");
+            }
+            if (blocking) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.findPopular(count);
+        }
+    }
+}
@@ -3,12 +3,21 @@ package ru.yandex.practicum.filmorate.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,23 +25,47 @@ public class UserServiceTest {
 
     private UserService userService;
     private InMemoryUserStorage userStorage;
+    private InMemoryFilmStorage filmStorage;
 
     @BeforeEach
     protected void setUp() {
         userStorage = new InMemoryUserStorage();
-        userService = new UserService(userStorage);
+        filmStorage = new InMemoryFilmStorage();
+        userService = new UserService(userStorage, filmStorage, Optional.empty());
     }
 
     @Test
     protected void testAddFriendSuccess() {
-        User user1 = new User(null, "user1@example.com", "user1", "User One", LocalDate.of(1990, 1, 1), new HashSet<>());
-        User user2 = new User(null, "user2@example.com", "user2", "User Two", LocalDate.of(1991, 2, 2), new HashSet<>());
+        User user1 = new User(null, "user1@example.com", "user1", "User One", LocalDate.of(1990, 1, 1), new LongSet());
+        User user2 = new User(null, "user2@example.com", "user2", "User Two", LocalDate.of(1991, 2, 2), new LongSet());
         User createdUser1 = userStorage.create(user1);
         User createdUser2 = userStorage.create(user2);
         userService.addFriend(createdUser1.getId(), createdUser2.getId());
         assertTrue(createdUser1.getFriends().contains(createdUser2.getId()));
     }
 
+    @Test
+    protected void testDeleteUsersRemovesFriendshipsAndLikes() {
+        User first = userStorage.create(new User(null, "first@example.com", "first", "First", LocalDate.of(1990, 1, 1), null));
+        User second = userStorage.create(new User(null, "second@example.com", "second", "Second", LocalDate.of(1990, 1, 1), null));
+        User third = userStorage.create(new User(null, "third@example.com", "third", "Third", LocalDate.of(1990, 1, 1), null));
+        userService.addFriend(first.getId(), third.getId());
+        userService.addFriend(second.getId(), third.getId());
+        Film film = filmStorage.create(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLikes(film.getId(), LongSet.of(first.getId(), second.getId(), third.getId()));
+
+        userService.deleteUser(first.getId());
+        assertEquals(LongSet.of(second.getId(), third.getId()), film.getLikes());
+        assertEquals(LongSet.of(second.getId()), third.getFriends());
+        assertThrows(NotFoundException.class, () -> userService.deleteUser(first.getId()));
+
+        List<BatchResult> results = userService.deleteUsers(Arrays.asList(second.getId(), null, 999L));
+        assertEquals(List.of(204, 400, 404), results.stream().map(BatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals(LongSet.of(third.getId()), film.getLikes());
+        assertTrue(third.getFriends().isEmpty());
+        assertEquals(1, userStorage.count());
+    }
+
     @Test
     protected void testAddFriendUserNotFound() {
         assertThrows(NotFoundException.class, () -> userService.addFriend(999L, 1L));
@@ -40,8 +73,8 @@ public class UserServiceTest {
 
     @Test
     protected void testRemoveFriendSuccess() {
-        User user1 = new User(null, "user1@example.com", "user1", "User One", LocalDate.of(1990, 1, 1), new HashSet<>());
-        User user2 = new User(null, "user2@example.com", "user2", "User Two", LocalDate.of(1991, 2, 2), new HashSet<>());
+        User user1 = new User(null, "user1@example.com", "user1", "User One", LocalDate.of(1990, 1, 1), new LongSet());
+        User user2 = new User(null, "user2@example.com", "user2", "User Two", LocalDate.of(1991, 2, 2), new LongSet());
         User createdUser1 = userStorage.create(user1);
         User createdUser2 = userStorage.create(user2);
         userService.addFriend(createdUser1.getId(), createdUser2.getId());
@@ -49,6 +82,19 @@ public class UserServiceTest {
         assertFalse(createdUser1.getFriends().contains(createdUser2.getId()));
     }
 
+    @Test
+    protected void testGetFriendsSkipsFriendBeingDeleted() {
+        User third = userStorage.create(new User(null, "third@example.com", "third", "Third", LocalDate.of(1990, 1, 1), null));
+        User second = userStorage.create(new User(null, "second@example.com", "second", "Second", LocalDate.of(1990, 1, 1), null));
+        // удаление уже убрало пользователя 99, но еще не сняло его из друзей
+        userStorage.restore(new User(100L, "first@example.com", "first", "First", LocalDate.of(1990, 1, 1),
+                LongSet.of(second.getId(), 99L, third.getId())));
+
+        assertEquals(List.of(third.getId(), second.getId()),
+                userService.getFriends(100L).stream().map(User::getId).collect(Collectors.toList()));
+        assertThrows(NotFoundException.class, () -> userService.getFriends(999L));
+    }
+
     @Test
     protected void testRemoveFriendUserNotFound() {
         assertThrows(NotFoundException.class, () -> userService.removeFriend(999L, 1L));
@@ -57,9 +103,9 @@ public class UserServiceTest {
 
     @Test
     protected void testGetCommonFriends() {
-        User user1 = new User(null, "user1@example.com", "user1", "User One", LocalDate.parse("1990-01-01"), new HashSet<>());
-        User user2 = new User(null, "user2@example.com", "user2", "User Two", LocalDate.parse("1991-02-02"), new HashSet<>());
-        User user3 = new User(null, "user3@example.com", "user3", "User Three", LocalDate.parse("1991-03-03"), new HashSet<>());
+        User user1 = new User(null, "user1@example.com", "user1", "User One", LocalDate.parse("1990-01-01"), new LongSet());
+        User user2 = new User(null, "user2@example.com", "user2", "User Two", LocalDate.parse("1991-02-02"), new LongSet());
+        User user3 = new User(null, "user3@example.com", "user3", "User Three", LocalDate.parse("1991-03-03"), new LongSet());
         User createdUser1 = userStorage.create(user1);
         User createdUser2 = userStorage.create(user2);
         User createdUser3 = userStorage.create(user3);
@@ -69,4 +115,106 @@ public class UserServiceTest {
         assertEquals(1, commonFriends.size());
         assertEquals(createdUser3.getId(), commonFriends.get(0).getId());
     }
+
+    @Test
+    protected void testGetCommonFriendsForHighDegreeUsers() {
+        User popular = userStorage.create(new User(null, "popular@example.com", "popular", "Popular", LocalDate.parse("1990-01-01"), new LongSet()));
+        User regular = userStorage.create(new User(null, "regular@example.com", "regular", "Regular", LocalDate.parse("1990-01-01"), new LongSet()));
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            User friend = userStorage.create(new User(null, "friend" + i + "@example.com", "friend" + i, "Friend " + i, LocalDate.parse("1990-01-01"), new LongSet()));
+            userService.addFriend(popular.getId(), friend.getId());
+            if (i % 100 == 0) {
+                userService.addFriend(regular.getId(), friend.getId());
+                expected.add(friend.getId());
+            }
+        }
+
+        Set<Long> common = userService.getCommonFriends(regular.getId(), popular.getId()).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        assertEquals(expected, common);
+        assertEquals(common, userService.getCommonFriends(popular.getId(), regular.getId()).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    protected void testCreateUsersReturnsPerItemResults() {
+        List<BatchResult> results = userService.createUsers(Arrays.asList(
+                new User(null, "user1@example.com", "user1", null, LocalDate.parse("1990-01-01"), null),
+                new User(null, "not-an-email", "user2", "User Two", LocalDate.parse("1990-01-01"), null),
+                null));
+
+        assertEquals(List.of(201, 400, 400), results.stream().map(BatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals("user1", userStorage.findById(results.get(0).getId()).getName());
+        assertTrue(results.get(1).getError().contains("Некорректный формат электронной почты"));
+        assertEquals(1, userStorage.findAll().size());
+    }
+
+    @Test
+    protected void testAddFriendsReturnsPerItemResults() {
+        User user1 = userStorage.create(new User(null, "user1@example.com", "user1", "User One", LocalDate.parse("1990-01-01"), null));
+        User user2 = userStorage.create(new User(null, "user2@example.com", "user2", "User Two", LocalDate.parse("1990-01-01"), null));
+        User user3 = userStorage.create(new User(null, "user3@example.com", "user3", "User Three", LocalDate.parse("1990-01-01"), null));
+
+        List<BatchResult> results = userService.addFriends(List.of(
+                new Friendship(user1.getId(), user2.getId()),
+                new Friendship(user3.getId(), user1.getId()),
+                new Friendship(user1.getId(), 999L)));
+
+        assertEquals(List.of(200, 200, 404), results.stream().map(BatchResult::getStatus).collect(Collectors.toList()));
+        assertEquals(LongSet.of(user2.getId(), user3.getId()), user1.getFriends());
+        assertEquals(LongSet.of(user1.getId()), user3.getFriends());
+    }
+
+    @Test
+    protected void testGetRecommendationsRanksByMutualFriends() {
+        long[] ids = new long[6];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = userStorage.create(new User(null, "user" + i + "@example.com", "user" + i, "User " + i,
+                    LocalDate.parse("1990-01-01"), null)).getId();
+        }
+        userService.addFriend(ids[0], ids[1]);
+        userService.addFriend(ids[0], ids[2]);
+        userService.addFriend(ids[1], ids[3]);
+        userService.addFriend(ids[2], ids[3]);
+        userService.addFriend(ids[1], ids[4]);
+        userService.addFriend(ids[1], ids[2]);
+
+        assertEquals(List.of(ids[3], ids[4]), recommendedIds(ids[0], 10));
+        assertEquals(List.of(ids[3]), recommendedIds(ids[0], 1));
+        assertTrue(userService.getRecommendations(ids[5], 10).isEmpty());
+        assertThrows(NotFoundException.class, () -> userService.getRecommendations(999L, 10));
+    }
+
+    @Test
+    protected void testGetRecommendationsCacheInvalidatedByFriendChanges() {
+        long[] ids = new long[5];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = userStorage.create(new User(null, "user" + i + "@example.com", "user" + i, "User " + i,
+                    LocalDate.parse("1990-01-01"), null)).getId();
+        }
+        userService.addFriend(ids[0], ids[1]);
+        userService.addFriend(ids[1], ids[2]);
+        assertEquals(List.of(ids[2]), recommendedIds(ids[0], 10));
+
+        // Друг друга (ids[1]) заводит нового друга — рекомендации ids[0] должны обновиться
+        userService.addFriend(ids[1], ids[3]);
+        assertEquals(List.of(ids[2], ids[3]), recommendedIds(ids[0], 10));
+
+        // Сам пользователь добавляет рекомендованного в друзья
+        userService.addFriend(ids[0], ids[2]);
+        assertEquals(List.of(ids[3]), recommendedIds(ids[0], 10));
+
+        userService.removeFriend(ids[1], ids[3]);
+        assertTrue(recommendedIds(ids[0], 10).isEmpty());
+
+        userService.addFriends(List.of(new Friendship(ids[2], ids[4])));
+        assertEquals(List.of(ids[4]), recommendedIds(ids[0], 10));
+    }
+
+    private List<Long> recommendedIds(long userId, int limit) {
+        return userService.getRecommendations(userId, limit).stream().map(User::getId).collect(Collectors.toList());
+    }
 }
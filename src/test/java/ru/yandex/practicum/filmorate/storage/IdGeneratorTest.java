@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    private IdGenerator idGenerator;
+
+    @BeforeEach
+    protected void setUp() {
+        idGenerator = new IdGenerator();
+    }
+
+    @Test
+    protected void next_startsFromOneAndIncrements() {
+        assertEquals(1L, idGenerator.next());
+        assertEquals(2L, idGenerator.next());
+        assertEquals(2L, idGenerator.current());
+    }
+
+    @Test
+    protected void reserve_returnsFirstIdOfBlock() {
+        idGenerator.next();
+        assertEquals(2L, idGenerator.reserve(10));
+        assertEquals(12L, idGenerator.next());
+        assertThrows(IllegalArgumentException.class, () -> idGenerator.reserve(0));
+    }
+
+    @Test
+    protected void advanceTo_keepsIdsMonotonic() {
+        idGenerator.advanceTo(100L);
+        assertEquals(101L, idGenerator.next());
+        idGenerator.advanceTo(50L);
+        assertEquals(102L, idGenerator.next());
+    }
+
+    @Test
+    protected void next_concurrentCallsProduceUniqueIds() throws InterruptedException {
+        int threads = 8;
+        int perThread = 10_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    ids.add(idGenerator.next());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(threads * perThread, idGenerator.current());
+    }
+}
@@ -5,9 +5,23 @@ import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.util.LongSet;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -60,6 +74,22 @@ public class InMemoryFilmStorageTest {
         assertEquals(2, films.size());
     }
 
+    @Test
+    protected void findPage_returnsFilmsAfterCursorInIdOrder() {
+        List<Film> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(filmStorage.create(new Film(null, "Film Name " + i, "Description", LocalDate.of(2000, 1, 1), 120, null)));
+        }
+
+        List<Film> firstPage = filmStorage.findPage(0, 2);
+        assertEquals(created.subList(0, 2), firstPage);
+        List<Film> secondPage = filmStorage.findPage(firstPage.get(1).getId(), 2);
+        assertEquals(created.subList(2, 4), secondPage);
+        List<Film> lastPage = filmStorage.findPage(secondPage.get(1).getId(), 2);
+        assertEquals(created.subList(4, 5), lastPage);
+        assertTrue(filmStorage.findPage(lastPage.get(0).getId(), 2).isEmpty());
+    }
+
     @Test
     protected void findFilmById_success() {
         Film film = new Film(null, "Film Name", "Description", LocalDate.of(2000, 1, 1), 120, null);
@@ -68,8 +98,438 @@ public class InMemoryFilmStorageTest {
         assertNotNull(foundFilm);
     }
 
+    @Test
+    protected void findPopular_reflectsUpdatedLikes() {
+        Film film1 = filmStorage.create(new Film(null, "Film Name 1", "Description 1", LocalDate.of(2000, 1, 1), 120, null));
+        Film film2 = filmStorage.create(new Film(null, "Film Name 2", "Description 2", LocalDate.of(2001, 1, 1), 130, null));
+        filmStorage.addLike(film2.getId(), 1L);
+        assertEquals(List.of(film2, film1), filmStorage.findPopular(10));
+
+        filmStorage.addLikes(film1.getId(), LongSet.of(1L, 2L));
+        assertEquals(List.of(film1, film2), filmStorage.findPopular(10));
+
+        Film updated = filmStorage.update(new Film(film1.getId(), "Film Name 1", "Description 1", LocalDate.of(2000, 1, 1), 120, null));
+        assertEquals(LongSet.of(1L, 2L), updated.getLikes());
+        assertEquals(List.of(updated, film2), filmStorage.findPopular(10));
+    }
+
+    @Test
+    protected void findRecommended_followsLikeChangesAndUpdates() {
+        Film shared = filmStorage.create(new Film(null, "Shared", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film candidate = filmStorage.create(new Film(null, "Candidate", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film other = filmStorage.create(new Film(null, "Other", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLike(other.getId(), 3L);
+        filmStorage.addLike(shared.getId(), 1L);
+        filmStorage.addLikes(shared.getId(), LongSet.of(2L, 3L));
+        filmStorage.addLike(candidate.getId(), 2L);
+
+        assertEquals(List.of(candidate.getId(), other.getId()),
+                filmStorage.findRecommended(1L, 10).stream().map(Film::getId).toList());
+
+        filmStorage.removeLike(candidate.getId(), 2L);
+        filmStorage.addLike(other.getId(), 2L);
+        filmStorage.update(new Film(other.getId(), "Other", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        assertEquals(List.of(other.getId()), filmStorage.findRecommended(1L, 10).stream().map(Film::getId).toList());
+        assertTrue(filmStorage.findRecommended(999L, 10).isEmpty());
+    }
+
+    @Test
+    protected void findLikedBy_pagesByIdAndFollowsLikeChanges() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            films.add(filmStorage.create(new Film(null, "Film " + i, "Description", LocalDate.of(2000, 1, 1), 120, null)));
+        }
+        for (int i = 4; i >= 0; i--) {
+            filmStorage.addLike(films.get(i).getId(), 1L);
+        }
+        filmStorage.addLikes(films.get(0).getId(), LongSet.of(2L));
+
+        assertEquals(List.of(films.get(0), films.get(1)), filmStorage.findLikedBy(1L, 0, 2));
+        assertEquals(List.of(films.get(2), films.get(3)), filmStorage.findLikedBy(1L, films.get(1).getId(), 2));
+        assertEquals(List.of(films.get(4)), filmStorage.findLikedBy(1L, films.get(3).getId(), 2));
+        assertTrue(filmStorage.findLikedBy(1L, films.get(4).getId(), 2).isEmpty());
+
+        filmStorage.removeLike(films.get(1).getId(), 1L);
+        filmStorage.removeLikes(films.get(2).getId(), LongSet.of(1L, 2L));
+        filmStorage.removeLike(films.get(3).getId(), 1L);
+        filmStorage.addLike(films.get(3).getId(), 2L);
+        filmStorage.update(new Film(films.get(3).getId(), "Film 3", "Description", LocalDate.of(2000, 1, 1), 120,
+                LongSet.of(1L)));
+        assertEquals(List.of(films.get(0), films.get(4)), filmStorage.findLikedBy(1L, 0, 10));
+        assertEquals(List.of(films.get(0), films.get(3)), filmStorage.findLikedBy(2L, 0, 10));
+        assertTrue(filmStorage.findLikedBy(999L, 0, 10).isEmpty());
+    }
+
+    @Test
+    protected void concurrentLikesAndUnlikes_reverseIndexMatchesFilms() throws InterruptedException {
+        int threads = 8;
+        int filmsCount = 32;
+        int usersCount = 64;
+        int operationsPerThread = 20_000;
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < filmsCount; i++) {
+            films.add(filmStorage.create(new Film(null, "Film " + i, "Description", LocalDate.of(2000, 1, 1), 120, null)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    long filmId = films.get(random.nextInt(filmsCount)).getId();
+                    long userId = random.nextInt(usersCount);
+                    switch (random.nextInt(4)) {
+                        case 0 -> filmStorage.addLike(filmId, userId);
+                        case 1 -> filmStorage.removeLike(filmId, userId);
+                        case 2 -> filmStorage.addLikes(filmId, LongSet.of(userId, userId + 1));
+                        default -> filmStorage.removeLikes(filmId, LongSet.of(userId, userId + 1));
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        for (long userId = 0; userId <= usersCount; userId++) {
+            List<Film> expected = new ArrayList<>();
+            for (Film film : films) {
+                if (filmStorage.findById(film.getId()).getLikes().contains(userId)) {
+                    expected.add(film);
+                }
+            }
+            assertEquals(expected, filmStorage.findLikedBy(userId, 0, filmsCount), "user " + userId);
+        }
+    }
+
+    @Test
+    protected void delete_removesFilmFromEveryIndex() {
+        Film kept = filmStorage.create(new Film(null, "Kept comedy", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLike(kept.getId(), 1L);
+        Film deleted = new Film(null, "Deleted comedy", "Description", LocalDate.of(2000, 1, 1), 120, null);
+        deleted.setMpa(new Mpa(3, null));
+        deleted.setGenres(List.of(new Genre(1, null)));
+        deleted = filmStorage.create(deleted);
+        filmStorage.addLikes(deleted.getId(), LongSet.of(1L, 2L));
+        long version = filmStorage.version();
+
+        filmStorage.delete(deleted.getId());
+
+        assertNull(filmStorage.findById(deleted.getId()));
+        assertEquals(1, filmStorage.count());
+        assertEquals(1, filmStorage.countLikes());
+        assertTrue(filmStorage.version() > version);
+        assertEquals(List.of(kept), filmStorage.findPopular(10));
+        assertEquals(List.of(kept), filmStorage.search("comedy", 10));
+        assertEquals(List.of(kept), filmStorage.findReleased(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 1)));
+        assertEquals(List.of(kept), filmStorage.findPopular(10, null, null, 2000));
+        assertTrue(filmStorage.findPopular(10, 1, 3, null).isEmpty());
+        assertEquals(List.of(kept), filmStorage.findLikedBy(1L, 0, 10));
+        assertTrue(filmStorage.findLikedBy(2L, 0, 10).isEmpty());
+        long deletedId = deleted.getId();
+        assertThrows(NotFoundException.class, () -> filmStorage.delete(deletedId));
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(deletedId, 3L));
+    }
+
+    @Test
+    protected void removeUserLikes_touchesOnlyTheirFilms() {
+        Film first = filmStorage.create(new Film(null, "First", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film second = filmStorage.create(new Film(null, "Second", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film third = filmStorage.create(new Film(null, "Third", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLikes(first.getId(), LongSet.of(1L, 2L, 3L));
+        filmStorage.addLikes(second.getId(), LongSet.of(1L, 4L));
+        filmStorage.addLikes(third.getId(), LongSet.of(3L, 4L));
+
+        filmStorage.removeUserLikes(LongSet.of(1L, 3L, 5L));
+
+        assertEquals(LongSet.of(2L), first.getLikes());
+        assertEquals(LongSet.of(4L), second.getLikes());
+        assertEquals(LongSet.of(4L), third.getLikes());
+        assertEquals(3, filmStorage.countLikes());
+        assertTrue(filmStorage.findLikedBy(1L, 0, 10).isEmpty());
+        assertTrue(filmStorage.findLikedBy(3L, 0, 10).isEmpty());
+        assertEquals(List.of(second, third), filmStorage.findLikedBy(4L, 0, 10));
+        assertEquals(List.of(first, second, third), filmStorage.findPopular(3));
+    }
+
+    @Test
+    protected void addLike_filmNotFound() {
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(999L, 1L));
+    }
+
+    @Test
+    protected void concurrentCreatesAndLikes_noUpdatesLost() throws InterruptedException {
+        int threads = 8;
+        int filmsCount = 16;
+        int usersPerThread = 500;
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < filmsCount; i++) {
+            films.add(filmStorage.create(new Film(null, "Film " + i, "Description", LocalDate.of(2000, 1, 1), 120, null)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            long firstUserId = (long) t * usersPerThread;
+            executor.submit(() -> {
+                start.await();
+                for (long userId = firstUserId; userId < firstUserId + usersPerThread; userId++) {
+                    for (Film film : films) {
+                        filmStorage.addLike(film.getId(), userId);
+                    }
+                    filmStorage.create(new Film(null, "Extra", "Description", LocalDate.of(2000, 1, 1), 90, null));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        for (Film film : films) {
+            assertEquals(threads * usersPerThread, filmStorage.findById(film.getId()).getLikes().size());
+        }
+        assertEquals(filmsCount + threads * usersPerThread, filmStorage.findAll().size());
+        List<Film> popular = filmStorage.findPopular(filmsCount);
+        assertEquals(filmsCount, popular.size());
+        assertTrue(popular.containsAll(films));
+    }
+
     @Test
     protected void findFilmById_notFound() {
         assertNull(filmStorage.findById(999L));
     }
+
+    @Test
+    protected void countLikes_followsEveryLikeChange() {
+        Film first = filmStorage.create(new Film(null, "Film 1", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLikes(first.getId(), LongSet.of(1L, 2L));
+        Film second = filmStorage.create(new Film(null, "Film 2", "Description", LocalDate.of(2001, 1, 1), 120, null));
+        filmStorage.addLike(second.getId(), 1L);
+        filmStorage.addLike(second.getId(), 1L);
+        filmStorage.addLikes(second.getId(), LongSet.of(2L, 3L));
+        filmStorage.removeLike(first.getId(), 1L);
+        filmStorage.removeLikes(second.getId(), LongSet.of(3L, 4L));
+        filmStorage.update(new Film(first.getId(), "Film 1", "Description", LocalDate.of(2000, 1, 1), 120,
+                LongSet.of(5L, 6L, 7L)));
+
+        assertEquals(2, filmStorage.count());
+        assertEquals(3, filmStorage.countLikes());
+    }
+
+    @Test
+    protected void version_changesOnlyWithData() {
+        long initial = filmStorage.version();
+        Film film = filmStorage.create(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        long created = filmStorage.version();
+        assertTrue(created > initial);
+
+        filmStorage.addLike(film.getId(), 1L);
+        long liked = filmStorage.version();
+        assertTrue(liked > created);
+        filmStorage.addLike(film.getId(), 1L);
+        filmStorage.findPopular(10);
+        assertEquals(liked, filmStorage.version());
+
+        filmStorage.removeLikes(film.getId(), LongSet.of(1L));
+        assertTrue(filmStorage.version() > liked);
+    }
+
+    @Test
+    protected void search_matchesPrefixesRankedByLikes() {
+        Film matrix = filmStorage.create(new Film(null, "Матрица", "Нео выбирает красную таблетку", LocalDate.of(1999, 3, 31), 136, null));
+        Film reloaded = filmStorage.create(new Film(null, "Матрица: Перезагрузка", "Продолжение", LocalDate.of(2003, 5, 15), 138, null));
+        filmStorage.addLikes(reloaded.getId(), LongSet.of(1L, 2L));
+        filmStorage.create(new Film(null, "Terminator 2", "Judgment Day", LocalDate.of(1991, 7, 1), 137, null));
+
+        assertEquals(List.of(reloaded.getId(), matrix.getId()),
+                filmStorage.search("МАТ", 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(reloaded.getId()),
+                filmStorage.search("матрица пере", 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(matrix.getId()),
+                filmStorage.search("красн", 10).stream().map(Film::getId).toList());
+        assertEquals(1, filmStorage.search("terminator 2", 10).size());
+        assertTrue(filmStorage.search("атрица", 10).isEmpty());
+        assertTrue(filmStorage.search(" ,.! ", 10).isEmpty());
+
+        filmStorage.update(new Film(matrix.getId(), "Matrix", "Neo", LocalDate.of(1999, 3, 31), 136, null));
+        assertTrue(filmStorage.search("красн", 10).isEmpty());
+        assertEquals(List.of(matrix.getId()), filmStorage.search("matr", 10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    protected void popularityTop_skipsRepeatsAndEmptyCount() {
+        PopularityIndex popularity = new PopularityIndex();
+        for (long filmId = 1; filmId <= 5; filmId++) {
+            popularity.update(filmId, (int) filmId);
+        }
+        int[] filterCalls = {0};
+        // каждый фильм приходит трижды, как из нескольких списков поиска
+        List<Long> top = popularity.top(ids -> {
+            for (int round = 0; round < 3; round++) {
+                for (long filmId = 1; filmId <= 5; filmId++) {
+                    ids.accept(filmId);
+                }
+            }
+        }, filmId -> ++filterCalls[0] > 0, 3);
+
+        assertEquals(List.of(5L, 4L, 3L), top);
+        assertEquals(5, filterCalls[0]);
+        assertTrue(popularity.top(ids -> ids.accept(1L), filmId -> true, 0).isEmpty());
+    }
+
+    @Test
+    protected void popularity_readersSeeEachFilmOnceWhileRanksMove() throws Exception {
+        PopularityIndex popularity = new PopularityIndex();
+        int films = 200;
+        for (long filmId = 1; filmId <= films; filmId++) {
+            popularity.update(filmId, 0);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // изменения одного фильма идут из одного потока, как под блокировкой фильма в хранилище
+            Future<?> writer = executor.submit(() -> {
+                Random random = new Random(42);
+                while (running.get()) {
+                    popularity.update(1 + random.nextInt(films), random.nextInt(20));
+                }
+            });
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    int reads = 0;
+                    while (running.get()) {
+                        List<Long> top = popularity.top(50);
+                        assertEquals(top.size(), Set.copyOf(top).size(), "повтор в top: " + top);
+                        List<Long> walked = new ArrayList<>();
+                        popularity.forEachWhile(walked::add);
+                        assertEquals(walked.size(), Set.copyOf(walked).size(), "повтор в обходе: " + walked);
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+            Thread.sleep(500);
+            running.set(false);
+            writer.get(5, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(5, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    protected void search_frequentWordWalksLeaderboard() {
+        for (int i = 0; i < 1_000; i++) {
+            filmStorage.create(new Film(null, "Common " + i, "Description", LocalDate.of(2000, 1, 1), 120, null));
+        }
+        Film rare = filmStorage.create(new Film(null, "Common rare", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLike(500L, 1L);
+
+        List<Film> found = filmStorage.search("common", 3);
+        assertEquals(List.of(500L, 1L, 2L), found.stream().map(Film::getId).toList());
+        assertEquals(List.of(rare.getId()), filmStorage.search("common rare", 3).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    protected void findReleased_followsReleaseDateChanges() {
+        Film first = filmStorage.create(new Film(null, "First", "Description", LocalDate.of(1999, 12, 31), 120, null));
+        Film second = filmStorage.create(new Film(null, "Second", "Description", LocalDate.of(2000, 6, 1), 120, null));
+        Film third = filmStorage.create(new Film(null, "Third", "Description", LocalDate.of(2000, 6, 1), 120, null));
+
+        assertEquals(List.of(second.getId(), third.getId()),
+                ids(filmStorage.findReleased(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 12, 31))));
+        assertEquals(List.of(first.getId()), ids(filmStorage.findReleased(null, LocalDate.of(1999, 12, 31))));
+        assertTrue(filmStorage.findReleased(LocalDate.of(2001, 1, 1), LocalDate.of(2000, 1, 1)).isEmpty());
+
+        filmStorage.update(new Film(first.getId(), "First", "Description", LocalDate.of(2010, 1, 1), 120, null));
+        filmStorage.patch(new FilmPatch(third.getId(), null, null, LocalDate.of(1990, 1, 1), null));
+        assertEquals(List.of(third.getId(), second.getId(), first.getId()), ids(filmStorage.findReleased(null, null)));
+        assertEquals(List.of(second.getId()),
+                ids(filmStorage.findReleased(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 12, 31))));
+    }
+
+    @Test
+    protected void findPopular_filtersByYear() {
+        Film early = filmStorage.create(new Film(null, "Early", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film late = filmStorage.create(new Film(null, "Late", "Description", LocalDate.of(2000, 12, 31), 120, null));
+        Film other = filmStorage.create(new Film(null, "Other", "Description", LocalDate.of(2001, 1, 1), 120, null));
+        filmStorage.addLike(late.getId(), 1L);
+        filmStorage.addLikes(other.getId(), LongSet.of(1L, 2L));
+
+        assertEquals(List.of(late.getId(), early.getId()), ids(filmStorage.findPopular(10, null, null, 2000)));
+        assertEquals(List.of(late.getId()), ids(filmStorage.findPopular(1, null, null, 2000)));
+        assertTrue(filmStorage.findPopular(10, null, null, 1999).isEmpty());
+    }
+
+    @Test
+    protected void categories_resolvedFromDictionaries() {
+        Film film = new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120, null);
+        film.setMpa(new Mpa(3, null));
+        film.setGenres(List.of(new Genre(2, null), new Genre(1, null), new Genre(2, null)));
+        Film created = filmStorage.create(film);
+
+        assertEquals("PG-13", created.getMpa().getName());
+        assertEquals(List.of(new Genre(1, "Комедия"), new Genre(2, "Драма")), created.getGenres());
+        assertEquals("Комедия", created.getGenres().get(0).getName());
+
+        Film unknownGenre = new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120, null);
+        unknownGenre.setGenres(List.of(new Genre(99, null)));
+        assertThrows(NotFoundException.class, () -> filmStorage.create(unknownGenre));
+        Film unknownMpa = new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120, null);
+        unknownMpa.setMpa(new Mpa(99, null));
+        assertThrows(NotFoundException.class, () -> filmStorage.create(unknownMpa));
+    }
+
+    @Test
+    protected void findPopular_intersectsCategoryIndexes() {
+        Film comedy = filmStorage.create(categorized("Comedy", 2000, 1, 1));
+        Film drama = filmStorage.create(categorized("Drama", 2000, 2, 2));
+        Film both = categorized("Both", 2001, 1, 1);
+        both.setGenres(List.of(new Genre(1, null), new Genre(2, null)));
+        Film comedyDrama = filmStorage.create(both);
+        filmStorage.addLike(comedy.getId(), 1L);
+        filmStorage.addLikes(drama.getId(), LongSet.of(1L, 2L));
+        filmStorage.addLikes(comedyDrama.getId(), LongSet.of(1L, 2L, 3L));
+
+        assertEquals(List.of(comedyDrama.getId(), comedy.getId()), ids(filmStorage.findPopular(10, 1, null, null)));
+        assertEquals(List.of(comedyDrama.getId(), drama.getId()), ids(filmStorage.findPopular(10, 2, null, null)));
+        assertEquals(List.of(drama.getId()), ids(filmStorage.findPopular(10, 2, 2, null)));
+        assertEquals(List.of(comedy.getId()), ids(filmStorage.findPopular(10, 1, null, 2000)));
+        assertTrue(filmStorage.findPopular(10, 3, null, null).isEmpty());
+
+        filmStorage.patch(new FilmPatch(comedy.getId(), null, null, null, null, new Mpa(2, null), List.of()));
+        assertEquals(List.of(comedyDrama.getId()), ids(filmStorage.findPopular(10, 1, null, null)));
+        assertEquals(List.of(drama.getId(), comedy.getId()), ids(filmStorage.findPopular(10, null, 2, null)));
+    }
+
+    @Test
+    protected void findPopular_broadFilterWalksLeaderboard() {
+        for (int i = 0; i < 1_000; i++) {
+            filmStorage.create(categorized("Film " + i, 2000 + i % 2, 1, 1 + i % 5));
+        }
+        filmStorage.addLike(999L, 1L);
+
+        assertEquals(List.of(999L, 1L), ids(filmStorage.findPopular(2, 1, null, null)));
+        assertEquals(List.of(2L, 12L), ids(filmStorage.findPopular(2, 1, 2, 2001)));
+    }
+
+    private static Film categorized(String name, int year, int genreId, int mpaId) {
+        Film film = new Film(null, name, "Description", LocalDate.of(year, 1, 1), 120, null);
+        film.setMpa(new Mpa(mpaId, null));
+        film.setGenres(List.of(new Genre(genreId, null)));
+        return film;
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
 }
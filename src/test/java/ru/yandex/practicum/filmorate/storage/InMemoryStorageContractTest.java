@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+
+class InMemoryStorageContractTest extends StorageContractTest {
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+
+    @BeforeEach
+    protected void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+    }
+
+    @Override
+    protected FilmStorage filmStorage() {
+        return filmStorage;
+    }
+
+    @Override
+    protected UserStorage userStorage() {
+        return userStorage;
+    }
+}
@@ -4,9 +4,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,6 +62,18 @@ class InMemoryUserStorageTest {
         assertEquals(2, users.size());
     }
 
+    @Test
+    protected void findPage_returnsUsersAfterCursorInIdOrder() {
+        List<User> created = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            created.add(userStorage.create(new User(null, "user" + i + "@example.com", "login" + i, "User " + i, LocalDate.of(1990, 1, 1), null)));
+        }
+
+        assertEquals(created.subList(0, 2), userStorage.findPage(0, 2));
+        assertEquals(created.subList(2, 3), userStorage.findPage(created.get(1).getId(), 2));
+        assertTrue(userStorage.findPage(created.get(2).getId(), 2).isEmpty());
+    }
+
     @Test
     protected void findUserById_success() {
         User user = new User(1L, "test@example.com", "testlogin", "Test User", LocalDate.of(1990, 1, 1), null);
@@ -63,10 +82,144 @@ class InMemoryUserStorageTest {
         assertNotNull(foundUser);
     }
 
+    @Test
+    protected void concurrentFriendUpdates_noUpdatesLost() throws InterruptedException {
+        int usersCount = 200;
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < usersCount; i++) {
+            users.add(userStorage.create(new User(null, "user" + i + "@example.com", "login" + i, "User " + i, LocalDate.of(1990, 1, 1), null)));
+        }
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = offset; i < usersCount; i += threads) {
+                    for (int j = 0; j < usersCount; j++) {
+                        if (i != j) {
+                            userStorage.addFriend(users.get(i).getId(), users.get(j).getId());
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        for (User user : users) {
+            assertEquals(usersCount - 1, userStorage.findById(user.getId()).getFriends().size());
+        }
+    }
+
+    @Test
+    protected void addFriend_userNotFound() {
+        User user = userStorage.create(new User(null, "test@example.com", "testlogin", "Test User", LocalDate.of(1990, 1, 1), null));
+        assertThrows(NotFoundException.class, () -> userStorage.addFriend(user.getId(), 999L));
+        assertTrue(user.getFriends().isEmpty());
+    }
+
+    @Test
+    protected void findRecommendations_ranksByMutualFriendsThenId() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(userStorage.create(new User(null, "user" + i + "@example.com", "user" + i, "User " + i,
+                    LocalDate.of(1990, 1, 1), null)).getId());
+        }
+        userStorage.addFriend(ids.get(0), ids.get(1));
+        userStorage.addFriend(ids.get(0), ids.get(2));
+        userStorage.addFriend(ids.get(1), ids.get(5));
+        userStorage.addFriend(ids.get(1), ids.get(4));
+        userStorage.addFriend(ids.get(2), ids.get(5));
+        userStorage.addFriend(ids.get(2), ids.get(3));
+
+        List<Long> recommended = userStorage.findRecommendations(ids.get(0), 10).stream().map(User::getId).toList();
+        assertEquals(List.of(ids.get(5), ids.get(3), ids.get(4)), recommended);
+        assertThrows(NotFoundException.class, () -> userStorage.findRecommendations(999L, 10));
+    }
+
+    @Test
+    protected void findRecommendations_boundedForLargeFriendLists() {
+        User user = userStorage.create(new User(null, "user@example.com", "user", "User", LocalDate.of(1990, 1, 1), null));
+        User candidate = userStorage.create(new User(null, "c@example.com", "candidate", "C", LocalDate.of(1990, 1, 1), null));
+        int friends = InMemoryUserStorage.RECOMMENDATION_FAN_OUT + 500;
+        for (int i = 0; i < friends; i++) {
+            User friend = userStorage.create(new User(null, "f" + i + "@example.com", "f" + i, "F", LocalDate.of(1990, 1, 1), null));
+            userStorage.addFriend(user.getId(), friend.getId());
+            userStorage.addFriend(friend.getId(), candidate.getId());
+        }
+
+        List<User> recommended = userStorage.findRecommendations(user.getId(), 5);
+        assertEquals(1, recommended.size());
+        assertEquals(candidate.getId(), recommended.get(0).getId());
+    }
+
+    @Test
+    protected void delete_removesUserFromFriendsOnly() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            users.add(userStorage.create(new User(null, "user" + i + "@example.com", "user" + i, "User " + i,
+                    LocalDate.of(1990, 1, 1), null)));
+        }
+        long deleted = users.get(0).getId();
+        userStorage.addFriend(deleted, users.get(1).getId());
+        userStorage.addFriend(deleted, users.get(2).getId());
+        userStorage.addFriend(users.get(1).getId(), users.get(3).getId());
+        long friendVersion = userStorage.friendsVersion(users.get(1).getId());
+        long strangerVersion = userStorage.friendsVersion(users.get(3).getId());
+
+        userStorage.delete(deleted);
+
+        assertNull(userStorage.findById(deleted));
+        assertEquals(3, userStorage.count());
+        assertEquals(2, userStorage.countFriendLinks());
+        assertEquals(List.of(users.get(3)), List.copyOf(userStorage.findFriendsById(users.get(1).getId())));
+        assertTrue(userStorage.findFriendsById(users.get(2).getId()).isEmpty());
+        assertTrue(userStorage.friendsVersion(users.get(1).getId()) > friendVersion);
+        assertTrue(userStorage.friendsVersion(users.get(3).getId()) > strangerVersion);
+        assertThrows(NotFoundException.class, () -> userStorage.addFriend(deleted, users.get(3).getId()));
+        assertThrows(NotFoundException.class, () -> userStorage.delete(deleted));
+    }
+
     @Test
     protected void findUserById_notFound() {
         assertNull(userStorage.findById(999L));
     }
-}
 
+    @Test
+    protected void countFriendLinks_countsBothDirections() {
+        User first = userStorage.create(new User(null, "a@example.com", "a", "A", LocalDate.of(1990, 1, 1), null));
+        User second = userStorage.create(new User(null, "b@example.com", "b", "B", LocalDate.of(1990, 1, 1), null));
+        User third = userStorage.create(new User(null, "c@example.com", "c", "C", LocalDate.of(1990, 1, 1), null));
+        userStorage.addFriend(first.getId(), second.getId());
+        userStorage.addFriend(second.getId(), first.getId());
+        userStorage.addFriend(first.getId(), third.getId());
+        userStorage.removeFriend(first.getId(), third.getId());
+
+        assertEquals(3, userStorage.count());
+        assertEquals(2, userStorage.countFriendLinks());
+    }
 
+    @Test
+    protected void friendsVersion_followsFriendsAndTheirProfiles() {
+        User user = userStorage.create(new User(null, "a@example.com", "a", "A", LocalDate.of(1990, 1, 1), null));
+        User friend = userStorage.create(new User(null, "b@example.com", "b", "B", LocalDate.of(1990, 1, 1), null));
+        User stranger = userStorage.create(new User(null, "c@example.com", "c", "C", LocalDate.of(1990, 1, 1), null));
+
+        userStorage.addFriend(user.getId(), friend.getId());
+        long withFriend = userStorage.friendsVersion(user.getId());
+        userStorage.patch(new UserPatch(stranger.getId(), null, null, "Stranger", null));
+        assertEquals(withFriend, userStorage.friendsVersion(user.getId()));
+
+        userStorage.patch(new UserPatch(friend.getId(), null, null, "Friend", null));
+        long renamed = userStorage.friendsVersion(user.getId());
+        assertTrue(renamed > withFriend);
+
+        userStorage.removeFriend(user.getId(), friend.getId());
+        assertTrue(userStorage.friendsVersion(user.getId()) > renamed);
+    }
+}
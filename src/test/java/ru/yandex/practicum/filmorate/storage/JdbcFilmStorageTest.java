@@ -0,0 +1,243 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest(properties = "filmorate.storage=jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class, JdbcDictionaryStorage.class})
+class JdbcFilmStorageTest {
+
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+    @Autowired
+    private JdbcUserStorage userStorage;
+    private User user1;
+    private User user2;
+
+    @BeforeEach
+    protected void setUp() {
+        user1 = userStorage.create(new User(null, "user1@example.com", "user1", "User 1", LocalDate.of(1990, 1, 1), null));
+        user2 = userStorage.create(new User(null, "user2@example.com", "user2", "User 2", LocalDate.of(1990, 1, 1), null));
+    }
+
+    @Test
+    protected void createAndFindFilm() {
+        Film created = filmStorage.create(new Film(null, "Film Name", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        assertNotNull(created.getId());
+
+        Film found = filmStorage.findById(created.getId());
+        assertNotNull(found);
+        assertEquals("Film Name", found.getName());
+        assertEquals(LocalDate.of(2000, 1, 1), found.getReleaseDate());
+        assertTrue(found.getLikes().isEmpty());
+        assertNull(filmStorage.findById(999_999L));
+    }
+
+    @Test
+    protected void createFilm_invalidReleaseDate() {
+        Film film = new Film(null, "Film Name", "Description", LocalDate.of(1800, 1, 1), 120, null);
+        assertThrows(ValidationException.class, () -> filmStorage.create(film));
+    }
+
+    @Test
+    protected void updateFilm_keepsLikes() {
+        Film created = filmStorage.create(new Film(null, "Film Name", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLike(created.getId(), user1.getId());
+
+        Film updated = filmStorage.update(new Film(created.getId(), "Updated", "Description", LocalDate.of(2000, 1, 1), 90, null));
+        assertEquals("Updated", filmStorage.findById(created.getId()).getName());
+        assertEquals(LongSet.of(user1.getId()), updated.getLikes());
+        assertThrows(NotFoundException.class,
+                () -> filmStorage.update(new Film(999_999L, "Film", "Description", LocalDate.of(2000, 1, 1), 90, null)));
+    }
+
+    @Test
+    protected void likesAndPopularity() {
+        Film film1 = filmStorage.create(new Film(null, "Film 1", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film film2 = filmStorage.create(new Film(null, "Film 2", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film film3 = filmStorage.create(new Film(null, "Film 3", "Description", LocalDate.of(2000, 1, 1), 120, null));
+
+        filmStorage.addLikes(film3.getId(), LongSet.of(user1.getId(), user2.getId()));
+        filmStorage.addLike(film2.getId(), user1.getId());
+        filmStorage.addLike(film2.getId(), user1.getId());
+
+        assertEquals(List.of(film3.getId(), film2.getId(), film1.getId()), ids(filmStorage.findPopular(10)));
+        assertEquals(LongSet.of(user1.getId(), user2.getId()), filmStorage.findPopular(1).get(0).getLikes());
+
+        filmStorage.removeLike(film3.getId(), user1.getId());
+        filmStorage.removeLike(film3.getId(), user2.getId());
+        filmStorage.removeLike(film3.getId(), user2.getId());
+        assertEquals(List.of(film2.getId(), film1.getId(), film3.getId()), ids(filmStorage.findPopular(10)));
+        assertTrue(filmStorage.findPopular(0).isEmpty());
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(999_999L, user1.getId()));
+    }
+
+    @Test
+    protected void findRecommended() {
+        User user3 = userStorage.create(new User(null, "user3@example.com", "user3", "User 3", LocalDate.of(1990, 1, 1), null));
+        Film shared = filmStorage.create(new Film(null, "Shared", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film fromSimilar = filmStorage.create(new Film(null, "Similar", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film fromOther = filmStorage.create(new Film(null, "Other", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film shared2 = filmStorage.create(new Film(null, "Shared 2", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLike(shared.getId(), user1.getId());
+        filmStorage.addLike(shared2.getId(), user1.getId());
+        filmStorage.addLike(shared.getId(), user2.getId());
+        filmStorage.addLike(shared2.getId(), user2.getId());
+        filmStorage.addLike(fromSimilar.getId(), user2.getId());
+        filmStorage.addLike(shared.getId(), user3.getId());
+        filmStorage.addLike(fromOther.getId(), user3.getId());
+
+        assertEquals(List.of(fromSimilar.getId(), fromOther.getId()), ids(filmStorage.findRecommended(user1.getId(), 10)));
+        assertEquals(List.of(fromSimilar.getId()), ids(filmStorage.findRecommended(user1.getId(), 1)));
+        assertTrue(filmStorage.findRecommended(999_999L, 10).isEmpty());
+    }
+
+    @Test
+    protected void findLikedBy() {
+        Film first = filmStorage.create(new Film(null, "First", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film notLiked = filmStorage.create(new Film(null, "Not liked", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film second = filmStorage.create(new Film(null, "Second", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film third = filmStorage.create(new Film(null, "Third", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLike(third.getId(), user1.getId());
+        filmStorage.addLike(first.getId(), user1.getId());
+        filmStorage.addLikes(second.getId(), LongSet.of(user1.getId(), user2.getId()));
+        filmStorage.addLike(notLiked.getId(), user2.getId());
+
+        assertEquals(List.of(first.getId(), second.getId()), ids(filmStorage.findLikedBy(user1.getId(), 0, 2)));
+        assertEquals(List.of(third.getId()), ids(filmStorage.findLikedBy(user1.getId(), second.getId(), 2)));
+        assertEquals(LongSet.of(user1.getId(), user2.getId()),
+                filmStorage.findLikedBy(user1.getId(), first.getId(), 1).get(0).getLikes());
+
+        filmStorage.removeLike(second.getId(), user1.getId());
+        assertEquals(List.of(first.getId(), third.getId()), ids(filmStorage.findLikedBy(user1.getId(), 0, 10)));
+        assertTrue(filmStorage.findLikedBy(999_999L, 0, 10).isEmpty());
+    }
+
+    @Test
+    protected void delete_cascadesLikesAndKeepsPopularity() {
+        Film deleted = filmStorage.create(new Film(null, "Deleted", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film first = filmStorage.create(new Film(null, "First", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film second = filmStorage.create(new Film(null, "Second", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLikes(deleted.getId(), LongSet.of(user1.getId(), user2.getId()));
+        filmStorage.addLike(first.getId(), user2.getId());
+        filmStorage.addLikes(second.getId(), LongSet.of(user1.getId(), user2.getId()));
+
+        filmStorage.delete(deleted.getId());
+        assertNull(filmStorage.findById(deleted.getId()));
+        assertEquals(3, filmStorage.countLikes());
+        assertEquals(List.of(second.getId(), first.getId()), ids(filmStorage.findPopular(2)));
+        assertThrows(NotFoundException.class, () -> filmStorage.delete(deleted.getId()));
+
+        userStorage.addFriend(user1.getId(), user2.getId());
+        // счетчик лайков second должен уменьшиться вместе с каскадным удалением лайка user1
+        userStorage.delete(user1.getId());
+        filmStorage.removeUserLikes(LongSet.of(user1.getId()));
+        assertNull(userStorage.findById(user1.getId()));
+        assertEquals(LongSet.of(user2.getId()), filmStorage.findById(second.getId()).getLikes());
+        assertEquals(List.of(first.getId(), second.getId()), ids(filmStorage.findPopular(2)));
+        assertTrue(userStorage.findById(user2.getId()).getFriends().isEmpty());
+    }
+
+    @Test
+    protected void findPageAndFindAll() {
+        Film film1 = filmStorage.create(new Film(null, "Film 1", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film film2 = filmStorage.create(new Film(null, "Film 2", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLike(film2.getId(), user2.getId());
+
+        assertEquals(List.of(film1.getId()), ids(filmStorage.findPage(0, 1)));
+        List<Film> secondPage = filmStorage.findPage(film1.getId(), 1);
+        assertEquals(List.of(film2.getId()), ids(secondPage));
+        assertEquals(LongSet.of(user2.getId()), secondPage.get(0).getLikes());
+        assertEquals(2, filmStorage.findAll().size());
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    @Test
+    protected void patchFilm_keepsOtherFieldsAndLikes() {
+        Film created = filmStorage.create(new Film(null, "Film Name", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage.addLike(created.getId(), user1.getId());
+
+        Film patched = filmStorage.patch(new FilmPatch(created.getId(), "Renamed", null, LocalDate.of(2001, 1, 1), null));
+
+        assertEquals("Renamed", patched.getName());
+        assertEquals("Description", patched.getDescription());
+        assertEquals(LocalDate.of(2001, 1, 1), patched.getReleaseDate());
+        assertEquals(120, patched.getDuration());
+        assertEquals(LongSet.of(user1.getId()), patched.getLikes());
+        assertThrows(NotFoundException.class, () -> filmStorage.patch(new FilmPatch(999L, "Name", null, null, null)));
+    }
+
+    @Test
+    protected void search_matchesWordPrefixesRankedByLikes() {
+        Film matrix = filmStorage.create(new Film(null, "Матрица", "Нео выбирает красную таблетку", LocalDate.of(1999, 3, 31), 136, null));
+        Film reloaded = filmStorage.create(new Film(null, "Матрица Перезагрузка", "Продолжение", LocalDate.of(2003, 5, 15), 138, null));
+        filmStorage.addLike(reloaded.getId(), user1.getId());
+
+        assertEquals(List.of(reloaded.getId(), matrix.getId()),
+                filmStorage.search("МАТ", 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(reloaded.getId()),
+                filmStorage.search("матрица пере", 10).stream().map(Film::getId).toList());
+        assertEquals(List.of(matrix.getId()),
+                filmStorage.search("красн", 10).stream().map(Film::getId).toList());
+        assertTrue(filmStorage.search("атрица", 10).isEmpty());
+    }
+
+    @Test
+    protected void categories_storedAndFiltered() {
+        Film film = new Film(null, "Comedy", "Description", LocalDate.of(2000, 1, 1), 120, null);
+        film.setMpa(new Mpa(1, null));
+        film.setGenres(List.of(new Genre(2, null), new Genre(1, null)));
+        Film comedy = filmStorage.create(film);
+        Film drama = new Film(null, "Drama", "Description", LocalDate.of(2001, 1, 1), 120, null);
+        drama.setGenres(List.of(new Genre(2, null)));
+        drama = filmStorage.create(drama);
+        filmStorage.addLike(drama.getId(), user1.getId());
+
+        Film found = filmStorage.findById(comedy.getId());
+        assertEquals(new Mpa(1, "G"), found.getMpa());
+        assertEquals("G", found.getMpa().getName());
+        assertEquals(List.of("Комедия", "Драма"), found.getGenres().stream().map(Genre::getName).toList());
+        assertEquals(List.of(drama.getId(), comedy.getId()), ids(filmStorage.findPopular(10, 2, null, null)));
+        assertEquals(List.of(comedy.getId()), ids(filmStorage.findPopular(10, 2, 1, 2000)));
+
+        filmStorage.patch(new FilmPatch(comedy.getId(), null, null, null, null, null, List.of()));
+        assertEquals(List.of(drama.getId()), ids(filmStorage.findPopular(10, 2, null, null)));
+        assertEquals(new Mpa(1, "G"), filmStorage.findById(comedy.getId()).getMpa());
+        Film unknown = new Film(comedy.getId(), "Comedy", "Description", LocalDate.of(2000, 1, 1), 120, null);
+        unknown.setMpa(new Mpa(99, null));
+        assertThrows(NotFoundException.class, () -> filmStorage.update(unknown));
+    }
+
+    @Test
+    protected void findByReleaseDate() {
+        Film early = filmStorage.create(new Film(null, "Early", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film late = filmStorage.create(new Film(null, "Late", "Description", LocalDate.of(2000, 12, 31), 120, null));
+        Film other = filmStorage.create(new Film(null, "Other", "Description", LocalDate.of(2001, 1, 1), 120, null));
+        filmStorage.addLike(late.getId(), user1.getId());
+
+        assertEquals(List.of(late.getId(), other.getId()), ids(filmStorage.findReleased(LocalDate.of(2000, 6, 1), null)));
+        assertEquals(LongSet.of(user1.getId()), filmStorage.findReleased(LocalDate.of(2000, 6, 1), null).get(0).getLikes());
+        assertEquals(List.of(early.getId()), ids(filmStorage.findReleased(null, LocalDate.of(2000, 1, 1))));
+        assertEquals(List.of(late.getId(), early.getId()), ids(filmStorage.findPopular(10, null, null, 2000)));
+        assertTrue(filmStorage.findPopular(0, null, null, 2000).isEmpty());
+    }
+}
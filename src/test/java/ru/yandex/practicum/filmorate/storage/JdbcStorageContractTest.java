@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+
+@JdbcTest(properties = "filmorate.storage=jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class, JdbcDictionaryStorage.class})
+class JdbcStorageContractTest extends StorageContractTest {
+
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    @Override
+    protected FilmStorage filmStorage() {
+        return filmStorage;
+    }
+
+    @Override
+    protected UserStorage userStorage() {
+        return userStorage;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.validation.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest(properties = "filmorate.storage=jdbc")
+@Import(JdbcUserStorage.class)
+class JdbcUserStorageTest {
+
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    @Test
+    protected void createAndFindUser() {
+        User created = userStorage.create(new User(null, "test@example.com", "testlogin", "", LocalDate.of(1990, 1, 1), null));
+        assertNotNull(created.getId());
+        assertEquals("testlogin", created.getName());
+
+        User found = userStorage.findById(created.getId());
+        assertNotNull(found);
+        assertEquals("test@example.com", found.getEmail());
+        assertNull(userStorage.findById(999_999L));
+    }
+
+    @Test
+    protected void createUser_invalidEmail() {
+        User user = new User(null, "invalid-email", "login", "name", LocalDate.of(1990, 1, 1), null);
+        assertThrows(ConstraintViolationException.class, () -> userStorage.create(user));
+    }
+
+    @Test
+    protected void updateUser() {
+        User created = userStorage.create(new User(null, "test@example.com", "testlogin", "Test", LocalDate.of(1990, 1, 1), null));
+        created.setName("Updated");
+        userStorage.update(created);
+        assertEquals("Updated", userStorage.findById(created.getId()).getName());
+        assertThrows(NotFoundException.class,
+                () -> userStorage.update(new User(999_999L, "test@example.com", "login", "name", LocalDate.of(1990, 1, 1), null)));
+    }
+
+    @Test
+    protected void friendsAndCommonFriends() {
+        User user1 = createUser(1);
+        User user2 = createUser(2);
+        User common = createUser(3);
+        User other = createUser(4);
+
+        userStorage.addFriend(user1.getId(), common.getId());
+        userStorage.addFriend(user2.getId(), common.getId());
+        userStorage.addFriend(user1.getId(), other.getId());
+        userStorage.addFriend(user1.getId(), other.getId());
+
+        assertEquals(LongSet.of(common.getId(), other.getId()), userStorage.findById(user1.getId()).getFriends());
+        assertEquals(LongSet.of(user1.getId(), user2.getId()), userStorage.findById(common.getId()).getFriends());
+        assertEquals(List.of(common.getId()), userStorage.findCommonFriends(user1.getId(), user2.getId()).stream()
+                .map(User::getId)
+                .toList());
+        assertEquals(2, userStorage.findFriendsById(user1.getId()).size());
+
+        userStorage.removeFriend(common.getId(), user1.getId());
+        assertEquals(LongSet.of(other.getId()), userStorage.findById(user1.getId()).getFriends());
+        assertTrue(userStorage.findCommonFriends(user1.getId(), user2.getId()).isEmpty());
+        assertThrows(NotFoundException.class, () -> userStorage.addFriend(user1.getId(), 999_999L));
+    }
+
+    @Test
+    protected void findRecommendations() {
+        User user = createUser(1);
+        User friend1 = createUser(2);
+        User friend2 = createUser(3);
+        User popular = createUser(4);
+        User single = createUser(5);
+        userStorage.addFriend(user.getId(), friend1.getId());
+        userStorage.addFriend(user.getId(), friend2.getId());
+        userStorage.addFriend(friend1.getId(), friend2.getId());
+        userStorage.addFriend(friend1.getId(), single.getId());
+        userStorage.addFriend(friend1.getId(), popular.getId());
+        userStorage.addFriend(friend2.getId(), popular.getId());
+
+        assertEquals(List.of(popular.getId(), single.getId()), userStorage.findRecommendations(user.getId(), 10)
+                .stream()
+                .map(User::getId)
+                .toList());
+        assertEquals(1, userStorage.findRecommendations(user.getId(), 1).size());
+        assertThrows(NotFoundException.class, () -> userStorage.findRecommendations(999_999L, 10));
+    }
+
+    @Test
+    protected void findPage() {
+        User user1 = createUser(1);
+        User user2 = createUser(2);
+        assertEquals(List.of(user1.getId()), userStorage.findPage(0, 1).stream().map(User::getId).toList());
+        assertEquals(List.of(user2.getId()), userStorage.findPage(user1.getId(), 5).stream().map(User::getId).toList());
+    }
+
+    private User createUser(int index) {
+        return userStorage.create(new User(null, "user" + index + "@example.com", "user" + index, "User " + index,
+                LocalDate.of(1990, 1, 1), null));
+    }
+
+    @Test
+    protected void patchUser_keepsOtherFields() {
+        User created = userStorage.create(new User(null, "test@example.com", "testlogin", "Name", LocalDate.of(1990, 1, 1), null));
+
+        User patched = userStorage.patch(new UserPatch(created.getId(), null, "newlogin", "", null));
+
+        assertEquals("test@example.com", patched.getEmail());
+        assertEquals("newlogin", patched.getLogin());
+        assertEquals("newlogin", patched.getName());
+        assertEquals(LocalDate.of(1990, 1, 1), patched.getBirthday());
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Поведение, одинаковое для всех реализаций хранилищ. Наследники только предоставляют хранилища.
+ */
+abstract class StorageContractTest {
+
+    protected abstract FilmStorage filmStorage();
+
+    protected abstract UserStorage userStorage();
+
+    @Test
+    protected void create_ignoresLikesAndFriendsFromBody() {
+        User liker = userStorage().create(user(1));
+        Film film = filmStorage().create(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120,
+                LongSet.of(liker.getId())));
+        User user = userStorage().create(new User(null, "user2@example.com", "user2", "User 2",
+                LocalDate.of(1990, 1, 1), LongSet.of(liker.getId())));
+
+        assertTrue(film.getLikes().isEmpty());
+        assertTrue(filmStorage().findById(film.getId()).getLikes().isEmpty());
+        assertTrue(filmStorage().findLikedBy(liker.getId(), 0, 10).isEmpty());
+        assertTrue(user.getFriends().isEmpty());
+        assertTrue(userStorage().findFriendsById(user.getId()).isEmpty());
+        assertTrue(userStorage().findFriendsById(liker.getId()).isEmpty());
+    }
+
+    @Test
+    protected void update_keepsCurrentLikesAndFriends() {
+        User first = userStorage().create(user(1));
+        User second = userStorage().create(user(2));
+        User third = userStorage().create(user(3));
+        Film film = filmStorage().create(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        filmStorage().addLike(film.getId(), first.getId());
+        userStorage().addFriend(first.getId(), second.getId());
+
+        Film updated = filmStorage().update(new Film(film.getId(), "Updated", "Description", LocalDate.of(2000, 1, 1),
+                90, LongSet.of(second.getId(), third.getId())));
+        User updatedUser = userStorage().update(new User(first.getId(), "user1@example.com", "user1", "Updated",
+                LocalDate.of(1990, 1, 1), LongSet.of(third.getId())));
+
+        assertEquals(LongSet.of(first.getId()), updated.getLikes());
+        assertEquals(LongSet.of(first.getId()), filmStorage().findById(film.getId()).getLikes());
+        assertEquals(List.of(updated.getId()),
+                filmStorage().findLikedBy(first.getId(), 0, 10).stream().map(Film::getId).toList());
+        assertTrue(filmStorage().findLikedBy(second.getId(), 0, 10).isEmpty());
+        assertEquals(LongSet.of(second.getId()), updatedUser.getFriends());
+        assertEquals(List.of(second.getId()),
+                userStorage().findFriendsById(first.getId()).stream().map(User::getId).toList());
+        assertTrue(userStorage().findFriendsById(third.getId()).isEmpty());
+    }
+
+    private static User user(int index) {
+        return new User(null, "user" + index + "@example.com", "user" + index, "User " + index,
+                LocalDate.of(1990, 1, 1), null);
+    }
+}
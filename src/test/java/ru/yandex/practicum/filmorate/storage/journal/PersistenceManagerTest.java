@@ -0,0 +1,232 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenceManagerTest {
+
+    @TempDir
+    private Path dir;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private PersistenceManager manager;
+
+    @BeforeEach
+    protected void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        manager = new PersistenceManager(filmStorage, userStorage, dir, 10, 0);
+        manager.start();
+    }
+
+    @Test
+    protected void recover_replaysJournalWithoutSnapshot() {
+        fillState();
+        manager.flush();
+
+        PersistenceManager restored = restart();
+
+        assertRestoredState();
+        restored.close();
+    }
+
+    @Test
+    protected void recover_loadsSnapshotAndReplaysTail() {
+        fillState();
+        manager.snapshot();
+        Film film = filmStorage.create(new Film(null, "Third", "After snapshot", LocalDate.of(2010, 1, 1), 100, null));
+        filmStorage.addLike(film.getId(), 2L);
+        userStorage.removeFriend(1L, 2L);
+        manager.flush();
+
+        PersistenceManager restored = restart();
+
+        assertEquals(3, filmStorage.findAll().size());
+        assertEquals("Third", filmStorage.findById(film.getId()).getName());
+        assertTrue(filmStorage.findById(film.getId()).getLikes().contains(2L));
+        assertTrue(userStorage.findById(1L).getFriends().isEmpty());
+        assertEquals(List.of(1L, film.getId(), 2L),
+                filmStorage.findPopular(3).stream().map(Film::getId).toList());
+        restored.close();
+    }
+
+    @Test
+    protected void recover_replaysDeletes() {
+        fillState();
+        manager.snapshot();
+        Film film = filmStorage.create(new Film(null, "Third", "After snapshot", LocalDate.of(2010, 1, 1), 100, null));
+        filmStorage.addLike(film.getId(), 2L);
+        filmStorage.delete(film.getId());
+        userStorage.delete(2L);
+        filmStorage.removeUserLikes(LongSet.of(2L));
+        manager.flush();
+
+        PersistenceManager restored = restart();
+
+        assertNull(filmStorage.findById(film.getId()));
+        assertNull(userStorage.findById(2L));
+        assertTrue(userStorage.findById(1L).getFriends().isEmpty());
+        assertEquals(LongSet.of(1L), filmStorage.findById(1L).getLikes());
+        assertEquals(List.of(1L, 2L), filmStorage.findPopular(3).stream().map(Film::getId).toList());
+        restored.close();
+    }
+
+    /**
+     * Журнал после снимка может начинаться с изменений, которые снимок уже содержит. Если сущность потом удалили,
+     * в снимке ее нет, и такие записи нужно пропустить.
+     */
+    @Test
+    protected void recover_skipsRecordsOfEntitiesDeletedLater() throws IOException {
+        fillState();
+        manager.snapshot();
+        filmStorage.addLike(2L, 1L);
+        userStorage.addFriend(1L, 2L);
+        filmStorage.delete(2L);
+        userStorage.delete(2L);
+        manager.flush();
+        byte[] records = Files.readAllBytes(lastSegment());
+        manager.snapshot();
+        Files.write(lastSegment(), records, StandardOpenOption.APPEND);
+
+        PersistenceManager restored = restart();
+
+        assertEquals(List.of(1L), filmStorage.findAll().stream().map(Film::getId).toList());
+        assertEquals(List.of(1L), userStorage.findAll().stream().map(User::getId).toList());
+        restored.close();
+    }
+
+    @Test
+    protected void recover_doesNotReuseIdsOfDeletedEntities() {
+        fillState();
+        filmStorage.delete(2L);
+        userStorage.delete(2L);
+        manager.snapshot();
+
+        PersistenceManager restored = restart();
+
+        assertEquals(3L, filmStorage.create(new Film(null, "Next", "Description", LocalDate.of(2020, 1, 1), 90, null)).getId());
+        assertEquals(3L, userStorage.create(new User(null, "third@example.com", "third", "Third",
+                LocalDate.of(1992, 1, 1), null)).getId());
+        restored.close();
+    }
+
+    @Test
+    protected void apply_removalOfMissingEntityAdvancesIds() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        JournalCodec.writeId(out, JournalCodec.FILM_REMOVED, 5L);
+        JournalCodec.writeId(out, JournalCodec.USER_REMOVED, 7L);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+
+        JournalCodec.apply(in.readByte(), in, films, users);
+        JournalCodec.apply(in.readByte(), in, films, users);
+
+        assertEquals(6L, films.create(new Film(null, "Next", "Description", LocalDate.of(2020, 1, 1), 90, null)).getId());
+        assertEquals(8L, users.create(new User(null, "next@example.com", "next", "Next", LocalDate.of(1990, 1, 1), null)).getId());
+    }
+
+    @Test
+    protected void recover_skipsTornTail() throws IOException {
+        fillState();
+        manager.flush();
+        Path segment;
+        try (var files = Files.list(dir)) {
+            segment = files.filter(file -> file.getFileName().toString().startsWith("journal-"))
+                    .max(Path::compareTo)
+                    .orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        PersistenceManager restored = restart();
+
+        assertRestoredState();
+        Film film = filmStorage.create(new Film(null, "Next", "Description", LocalDate.of(2020, 1, 1), 90, null));
+        assertEquals(3L, film.getId());
+        restored.close();
+    }
+
+    @Test
+    protected void close_writesSnapshotAndRemovesOldSegments() throws IOException {
+        fillState();
+        manager.close();
+
+        try (var files = Files.list(dir)) {
+            List<String> names = files.map(file -> file.getFileName().toString()).sorted().toList();
+            assertEquals(List.of("journal-000002.log", "snapshot-000002.bin"), names);
+        }
+        restart().close();
+        assertRestoredState();
+    }
+
+    private void fillState() {
+        User first = userStorage.create(new User(null, "first@example.com", "first", "First", LocalDate.of(1990, 1, 1), null));
+        User second = userStorage.create(new User(null, "second@example.com", "second", "", LocalDate.of(1991, 1, 1), null));
+        userStorage.addFriend(first.getId(), second.getId());
+
+        Film film = filmStorage.create(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120, null));
+        Film other = new Film(null, "Other", null, LocalDate.of(2001, 1, 1), 90, null);
+        other.setMpa(new Mpa(4, null));
+        other.setGenres(List.of(new Genre(3, null)));
+        filmStorage.create(other);
+        filmStorage.addLike(film.getId(), first.getId());
+        filmStorage.addLike(film.getId(), second.getId());
+        filmStorage.removeLike(film.getId(), second.getId());
+        filmStorage.addLike(film.getId(), second.getId());
+    }
+
+    private void assertRestoredState() {
+        assertEquals(2, userStorage.findAll().size());
+        assertEquals("second", userStorage.findById(2L).getName());
+        assertTrue(userStorage.findById(1L).getFriends().contains(2L));
+        assertTrue(userStorage.findById(2L).getFriends().contains(1L));
+
+        assertEquals(2, filmStorage.findAll().size());
+        assertEquals(2, filmStorage.findById(1L).getLikes().size());
+        assertNull(filmStorage.findById(2L).getDescription());
+        assertEquals(LocalDate.of(2001, 1, 1), filmStorage.findById(2L).getReleaseDate());
+        assertEquals("R", filmStorage.findById(2L).getMpa().getName());
+        assertEquals(List.of(new Genre(3, "Мультфильм")), filmStorage.findById(2L).getGenres());
+        assertEquals(List.of(2L), filmStorage.findPopular(10, 3, 4, null).stream().map(Film::getId).toList());
+        assertEquals(List.of(1L, 2L), filmStorage.findPopular(2).stream().map(Film::getId).toList());
+    }
+
+    private Path lastSegment() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-"))
+                    .max(Path::compareTo)
+                    .orElseThrow();
+        }
+    }
+
+    private PersistenceManager restart() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        PersistenceManager restored = new PersistenceManager(filmStorage, userStorage, dir, 10, 0);
+        restored.start();
+        return restored;
+    }
+}
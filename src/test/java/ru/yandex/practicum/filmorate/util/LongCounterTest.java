@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongCounterTest {
+
+    @Test
+    protected void incrementAndGet() {
+        LongCounter counter = new LongCounter();
+        assertEquals(1, counter.increment(7L));
+        assertEquals(2, counter.increment(7L));
+        assertEquals(1, counter.increment(0L));
+        assertEquals(2, counter.get(7L));
+        assertEquals(1, counter.get(0L));
+        assertEquals(0, counter.get(8L));
+        assertEquals(2, counter.size());
+    }
+
+    @Test
+    protected void topKeysMatchesFullSort() {
+        LongCounter counter = new LongCounter();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(3_000) - 100;
+            counter.increment(key);
+            expected.merge(key, 1, Integer::sum);
+        }
+        long[] sorted = expected.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+
+        assertEquals(expected.size(), counter.size());
+        assertArrayEquals(Arrays.copyOf(sorted, 25), counter.topKeys(25));
+        assertArrayEquals(sorted, counter.topKeys(10_000));
+        assertEquals(0, counter.topKeys(0).length);
+    }
+}
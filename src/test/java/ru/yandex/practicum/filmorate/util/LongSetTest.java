@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSetTest {
+
+    @Test
+    protected void addContainsRemove() {
+        LongSet set = new LongSet();
+        assertTrue(set.add(5L));
+        assertFalse(set.add(5L));
+        assertTrue(set.contains(5L));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(5L));
+        assertFalse(set.remove(5L));
+        assertFalse(set.contains(5L));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    protected void handlesSentinelValues() {
+        LongSet set = LongSet.of(0L, Long.MIN_VALUE, Long.MAX_VALUE, -1L);
+        assertEquals(4, set.size());
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(Set.of(0L, Long.MIN_VALUE, Long.MAX_VALUE, -1L), new HashSet<>(set));
+        assertTrue(set.remove(0L));
+        assertTrue(set.remove(Long.MIN_VALUE));
+        assertEquals(Set.of(Long.MAX_VALUE, -1L), new HashSet<>(set));
+    }
+
+    @Test
+    protected void behavesLikeHashSetUnderRandomOperations() {
+        LongSet set = new LongSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertEquals(new TreeSet<>(expected), new TreeSet<>(set));
+        assertEquals(expected.size(), set.toLongArray().length);
+        assertEquals(expected, set);
+    }
+
+    @Test
+    protected void forEachCommonVisitsIntersection() {
+        LongSet small = LongSet.of(0L, 3L, 5L, 100L);
+        LongSet large = new LongSet();
+        for (long i = 0; i < 50; i++) {
+            large.add(i);
+        }
+        Set<Long> common = new TreeSet<>();
+        small.forEachCommon(large, common::add);
+        assertEquals(Set.of(0L, 3L, 5L), common);
+
+        common.clear();
+        large.forEachCommon(small, common::add);
+        assertEquals(Set.of(0L, 3L, 5L), common);
+
+        common.clear();
+        large.forEachCommon(new LongSet(), common::add);
+        assertTrue(common.isEmpty());
+    }
+
+    @Test
+    protected void iteratorRemove() {
+        LongSet set = LongSet.of(1L, 2L, 3L, 4L);
+        Iterator<Long> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(Set.of(1L, 3L), set);
+    }
+
+    @Test
+    protected void jsonCompatibleWithArrays() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Film film = new Film(1L, "Film", "Description", LocalDate.of(2000, 1, 1), 100, LongSet.of(3L, 7L));
+
+        String json = mapper.writeValueAsString(film);
+        Film restored = mapper.readValue(json, Film.class);
+        assertEquals(Set.of(3L, 7L), restored.getLikes());
+
+        Film fromArray = mapper.readValue("{\"name\":\"Film\",\"likes\":[1,2,2,5]}", Film.class);
+        assertEquals(LongSet.of(1L, 2L, 5L), fromArray.getLikes());
+        assertEquals("[1]", mapper.writeValueAsString(LongSet.of(1L)));
+    }
+
+    @Test
+    protected void usesLessMemoryThanHashSet() {
+        int size = 1_000_000;
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long before = usedHeap(memory);
+        Set<Long> hashSet = new HashSet<>();
+        for (long i = 1; i <= size; i++) {
+            hashSet.add(i * 31);
+        }
+        long hashSetBytes = usedHeap(memory) - before;
+        assertEquals(size, hashSet.size());
+        hashSet = null;
+
+        before = usedHeap(memory);
+        LongSet longSet = new LongSet();
+        for (long i = 1; i <= size; i++) {
+            longSet.add(i * 31);
+        }
+        long longSetBytes = usedHeap(memory) - before;
+        assertEquals(size, longSet.size());
+
+        assertTrue(longSetBytes * 2 < hashSetBytes,
+                "LongSet: " + longSetBytes + " байт, HashSet<Long>: " + hashSetBytes + " байт");
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    @Test
+    protected void evictsLeastRecentlyUsed() {
+        LruCache<Long, String> cache = new LruCache<>(2);
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        assertEquals("one", cache.get(1L));
+
+        cache.put(3L, "three");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(2L));
+        assertEquals("one", cache.get(1L));
+        assertEquals("three", cache.get(3L));
+    }
+
+    @Test
+    protected void acceptsNewKeysWhenFull() {
+        LruCache<Long, Long> cache = new LruCache<>(100);
+        for (long i = 0; i < 1_000; i++) {
+            assertNull(cache.putIfAbsent(i, i));
+        }
+        assertEquals(100, cache.size());
+        assertEquals(999L, cache.get(999L));
+        assertNull(cache.get(0L));
+    }
+
+    @Test
+    protected void replaceComparesByReference() {
+        LruCache<Long, String> cache = new LruCache<>(4);
+        String current = new String("value");
+        cache.put(1L, current);
+
+        assertFalse(cache.replace(1L, new String("value"), "other"));
+        assertTrue(cache.replace(1L, current, "other"));
+        assertEquals("other", cache.get(1L));
+        assertFalse(cache.replace(2L, null, "absent"));
+    }
+
+    @Test
+    protected void computeAndRemove() {
+        LruCache<Long, Integer> cache = new LruCache<>(4);
+        assertEquals(1, cache.compute(1L, (key, previous) -> previous == null ? 1 : previous + 1));
+        assertEquals(2, cache.compute(1L, (key, previous) -> previous == null ? 1 : previous + 1));
+        assertEquals(2, cache.remove(1L));
+        assertNull(cache.get(1L));
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<>(0));
+    }
+}